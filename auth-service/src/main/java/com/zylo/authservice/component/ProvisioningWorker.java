@@ -0,0 +1,181 @@
+package com.zylo.authservice.component;
+
+import com.zylo.authservice.entity.ProvisioningTask;
+import com.zylo.authservice.exception.ResourceConflictException;
+import com.zylo.authservice.repository.AccountsRepository;
+import com.zylo.authservice.repository.ProvisioningOutboxRepository;
+import com.zylo.authservice.repository.UserIdentityRepository;
+import com.zylo.authservice.service.AccountsService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the provisioning outbox. Each task walks group -> user -> local link -> membership -> setup email,
+ * persisting progress after every step so a retry resumes from the recorded Keycloak ids instead
+ * of repeating side effects. A conflict with something the task did not create fails it for good,
+ * and a task that fails for good rolls back its Keycloak objects and local rows.
+ */
+@Component
+public class ProvisioningWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(ProvisioningWorker.class);
+
+    @Autowired
+    private ProvisioningOutboxRepository provisioningOutboxRepository;
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Autowired
+    private UserIdentityRepository userIdentityRepository;
+
+    @Autowired
+    private AccountsRepository accountsRepository;
+
+    @Autowired
+    private TenantResolver tenantResolver;
+
+    @Value("${zylo.provisioning.batch-size:20}")
+    private int batchSize;
+
+    @Value("${zylo.provisioning.lease-seconds:120}")
+    private int leaseSeconds;
+
+    @Value("${zylo.provisioning.max-attempts:8}")
+    private int maxAttempts;
+
+    private final ExecutorService workers;
+    private final Semaphore permits;
+
+    public ProvisioningWorker(@Value("${zylo.provisioning.workers:4}") int workerCount) {
+        this.workers = Executors.newFixedThreadPool(workerCount);
+        this.permits = new Semaphore(workerCount);
+    }
+
+    @Scheduled(fixedDelayString = "${zylo.provisioning.poll-interval-ms:500}")
+    public void poll() {
+        // Only claim what the pool can start right away, so leases are not burnt while queued
+        int free = Math.min(batchSize, permits.availablePermits());
+        if (free == 0) {
+            return;
+        }
+        List<ProvisioningTask> tasks = provisioningOutboxRepository.claimDueTasks(free, leaseSeconds);
+        for (ProvisioningTask task : tasks) {
+            permits.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    process(task);
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+
+    void process(ProvisioningTask task) {
+        try {
+            if (task.getKeycloakGroupId() == null) {
+                renewLease(task);
+                String groupId = ProvisioningTask.ROOT_USER.equals(task.getType())
+                        ? accountsService.createGroup(task)
+                        : accountsService.resolveInviteGroup(task.getInvitedBy(), task.getOrganization());
+                task.setKeycloakGroupId(groupId);
+                task = provisioningOutboxRepository.save(task);
+            }
+            if (task.getKeycloakUserId() == null) {
+                renewLease(task);
+                task.setKeycloakUserId(accountsService.createUser(task));
+                task = provisioningOutboxRepository.save(task);
+            }
+            // Tokens carry the Keycloak id; record it so requests can be mapped back to users.id
+            userIdentityRepository.linkKeycloakId(task.getUserId(), task.getKeycloakUserId());
+            renewLease(task);
+            accountsService.joinGroup(task.getKeycloakUserId(), task.getKeycloakGroupId());
+            if (!task.isEmailSent()) {
+                renewLease(task);
+                accountsService.sendSetupEmail(task.getKeycloakUserId());
+                task.setEmailSent(true);
+            }
+            task.setStatus(ProvisioningTask.DONE);
+            task.setLastError(null);
+            task.setUpdatedAt(LocalDateTime.now());
+            provisioningOutboxRepository.save(task);
+        } catch (LeaseLostException e) {
+            // The other worker owns the task now and records its outcome
+            log.info("Provisioning task {} was reclaimed by another worker, stopping", task.getId());
+        } catch (Exception e) {
+            log.warn("Provisioning task {} failed on attempt {}: {}", task.getId(), task.getAttempts(), e.getMessage());
+            // Only the current lease holder may record the outcome or roll anything back
+            if (!provisioningOutboxRepository.renewLease(task.getId(), task.getAttempts(), leaseSeconds)) {
+                return;
+            }
+            task.setLastError(e.getMessage());
+            task.setUpdatedAt(LocalDateTime.now());
+            if (e instanceof ResourceConflictException || task.getAttempts() >= maxAttempts) {
+                task.setStatus(ProvisioningTask.FAILED);
+                rollBack(task);
+            } else {
+                task.setStatus(ProvisioningTask.PENDING);
+                // 2s, 4s, 8s ... capped at ten minutes
+                long backoffSeconds = Math.min(600, 1L << Math.min(task.getAttempts(), 10));
+                task.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds));
+            }
+            provisioningOutboxRepository.save(task);
+        }
+    }
+
+    // Extends the lease before every Keycloak call, so a slow task is not reclaimed and run twice.
+    // A reclaimed task has a higher attempt count, which makes the stale worker stop here.
+    private void renewLease(ProvisioningTask task) {
+        if (!provisioningOutboxRepository.renewLease(task.getId(), task.getAttempts(), leaseSeconds)) {
+            throw new LeaseLostException();
+        }
+    }
+
+    // Undoes what a failed task created, so the same email, username and organization can sign up
+    // again. Invited users join an existing group, which is never removed.
+    private void rollBack(ProvisioningTask task) {
+        boolean rootUser = ProvisioningTask.ROOT_USER.equals(task.getType());
+        try {
+            if (task.getKeycloakUserId() != null) {
+                accountsService.deleteUser(task.getKeycloakUserId());
+            }
+            if (rootUser && task.getKeycloakGroupId() != null) {
+                accountsService.deleteGroup(task.getKeycloakGroupId());
+            }
+            if (task.getUserId() != null) {
+                if (accountsRepository.deleteUnprovisionedUser(task.getUserId(), task.getTenantId(), rootUser)) {
+                    task.setTenantId(null);
+                    tenantResolver.invalidate(task.getOrganization());
+                }
+                task.setUserId(null);
+            }
+            // Frees the idempotency key, whose default is derived from the email
+            task.setIdempotencyKey(task.getIdempotencyKey() + "#failed:" + task.getId());
+        } catch (Exception e) {
+            log.error("Provisioning task {} failed and could not be rolled back: {}", task.getId(), e.getMessage());
+            task.setLastError(task.getLastError() + "; rollback failed: " + e.getMessage());
+        }
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,130 @@
+package com.zylo.authservice.component;
+
+import com.zylo.authservice.repository.AccountsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves the tenant of an authenticated request.
+ * Lookup order: signed tenant id claim on the JWT, in-process cache, Redis, database.
+ * The in-process level is an LRU bounded to max-size that expires entries after a TTL; other
+ * nodes are told to drop an entry through the {@link #INVALIDATION_CHANNEL} pub/sub channel.
+ */
+@Component
+public class TenantResolver {
+
+    public static final String INVALIDATION_CHANNEL = "tenant_invalidation";
+    private static final String TENANT_KEY_PREFIX = "tenant:";
+
+    @Autowired
+    private AccountsRepository accountsRepository;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Value("${zylo.tenant.claim:tenant_id}")
+    private String tenantClaim;
+
+    @Value("${zylo.tenant.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${zylo.tenant.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Access-ordered, so a full cache drops its least recently used tenant in O(1)
+    private final Map<String, CachedTenant> localCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedTenant> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public UUID resolve(Jwt jwt) {
+        Object claim = jwt.getClaims().get(tenantClaim);
+        if (claim != null) {
+            return UUID.fromString(claim.toString());
+        }
+        String name = getTenantName(jwt);
+        if (name == null) {
+            return null;
+        }
+        return resolveByName(name);
+    }
+
+    public UUID resolveByName(String name) {
+        long now = System.currentTimeMillis();
+        CachedTenant cached;
+        synchronized (localCache) {
+            cached = localCache.get(name);
+        }
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.tenantId();
+        }
+        String tenantUUID = redisTemplate.opsForValue().get(TENANT_KEY_PREFIX + name);
+        if (tenantUUID == null) {
+            tenantUUID = accountsRepository.getTenantIdByName(name);
+            if (tenantUUID == null) {
+                return null;
+            }
+            redisTemplate.opsForValue().set(TENANT_KEY_PREFIX + name, tenantUUID);
+        }
+        UUID tenantId = UUID.fromString(tenantUUID);
+        synchronized (localCache) {
+            localCache.put(name, new CachedTenant(tenantId, now + ttlSeconds * 1000));
+        }
+        return tenantId;
+    }
+
+    // Drops the mapping everywhere: Redis, this node, and (via pub/sub) every other node.
+    // Inside a transaction this waits for the commit, so no node can re-read the old row in between.
+    public void invalidate(String name) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(name);
+                }
+            });
+            return;
+        }
+        invalidateNow(name);
+    }
+
+    private void invalidateNow(String name) {
+        redisTemplate.delete(TENANT_KEY_PREFIX + name);
+        evictLocal(name);
+        redisTemplate.convertAndSend(INVALIDATION_CHANNEL, name);
+    }
+
+    public void evictLocal(String name) {
+        synchronized (localCache) {
+            localCache.remove(name);
+        }
+    }
+
+    // Group paths look like "/<tenant>" or "/<tenant>/<sub-group>"
+    private static String getTenantName(Jwt jwt) {
+        Object groups = jwt.getClaims().get("groups");
+        if (!(groups instanceof List<?> groupList) || groupList.isEmpty()) {
+            return null;
+        }
+        String path = groupList.get(0).toString();
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        String name = end < 0 ? path.substring(start) : path.substring(start, end);
+        return name.isEmpty() ? null : name;
+    }
+
+    private record CachedTenant(UUID tenantId, long expiresAt) {
+    }
+}
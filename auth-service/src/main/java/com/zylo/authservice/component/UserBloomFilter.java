@@ -0,0 +1,193 @@
+package com.zylo.authservice.component;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-tenant Bloom filter over usernames, stored as a Redis bitmap. Emails are unique across
+ * all tenants, so they are always checked against the database instead.
+ * A negative answer means the value was never registered, so the uniqueness query can be skipped;
+ * a positive answer may be a false positive and must be confirmed against the database.
+ * The DB unique constraints remain the source of truth, so values missing from the filter
+ * (e.g. users created before it existed) still cannot be duplicated.
+ * <p>
+ * Each tenant's filter is sized from its user count for the configured false positive rate, with
+ * room to double. Once a tenant outgrows that capacity the filter reports itself missing and is
+ * rebuilt from the database at twice the size, so small tenants stay small and large ones keep
+ * the target rate.
+ */
+@Component
+public class UserBloomFilter {
+
+    private static final String BLOOM_KEY = "tenant:%s:users:bloom:%d";
+    private static final String META_KEY = "tenant:%s:users:bloom:meta";
+    // Fixed-size bitmap of earlier releases, removed on the first rebuild
+    private static final String LEGACY_KEY = "tenant:%s:users:bloom";
+    private static final double LN2 = Math.log(2);
+    public static final String USERNAME = "u:";
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${zylo.users.bloom.fp-rate:0.001}")
+    private double fpRate;
+
+    @Value("${zylo.users.bloom.min-capacity:1024}")
+    private long minCapacity;
+
+    public boolean mightContainAny(UUID tenantId, String... values) {
+        for (boolean mightContain : mightContain(tenantId, List.of(values))) {
+            if (mightContain) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // One pipelined round trip for all values; result[i] answers values.get(i)
+    public boolean[] mightContain(UUID tenantId, List<String> values) {
+        boolean[] answers = new boolean[values.size()];
+        Layout layout = layout(tenantId);
+        if (layout == null) {
+            Arrays.fill(answers, true);
+            return answers;
+        }
+        byte[] key = bytes(layout.key());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String value : values) {
+                for (long offset : offsets(value, layout)) {
+                    connection.stringCommands().getBit(key, offset);
+                }
+            }
+            return null;
+        });
+        for (int i = 0; i < values.size(); i++) {
+            boolean allSet = true;
+            for (int j = 0; j < layout.hashes() && allSet; j++) {
+                allSet = Boolean.TRUE.equals(results.get(i * layout.hashes() + j));
+            }
+            answers[i] = allSet;
+        }
+        return answers;
+    }
+
+    // False for a tenant without a filter, and for one that has outgrown its capacity
+    public boolean exists(UUID tenantId) {
+        Layout layout = layout(tenantId);
+        return layout != null && layout.count() <= layout.capacity();
+    }
+
+    public void add(UUID tenantId, String... values) {
+        Layout layout = layout(tenantId);
+        if (layout == null) {
+            // The next check rebuilds the filter from the database, which will include these
+            return;
+        }
+        byte[] key = bytes(layout.key());
+        byte[] meta = bytes(String.format(META_KEY, tenantId));
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String value : values) {
+                setBits(connection, key, value, layout);
+            }
+            connection.hashCommands().hIncrBy(meta, bytes("count"), values.length);
+            return null;
+        });
+    }
+
+    public void addAll(UUID tenantId, List<String> values) {
+        add(tenantId, values.toArray(new String[0]));
+    }
+
+    // Replaces the tenant's filter with one sized for twice the given values. The new bitmap is
+    // filled under its own key before the metadata points at it, so readers never see it half built.
+    public void rebuild(UUID tenantId, List<String> values) {
+        long capacity = Math.max(minCapacity, 2L * values.size());
+        long bits = (long) Math.ceil(-capacity * Math.log(fpRate) / (LN2 * LN2));
+        int hashes = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+        Layout previous = layout(tenantId);
+        byte[] meta = bytes(String.format(META_KEY, tenantId));
+        // Unique per rebuild, so two nodes rebuilding at once never write into the same bitmap
+        Long next = redisTemplate.execute((RedisCallback<Long>) connection -> connection.hashCommands().hIncrBy(meta, bytes("next"), 1));
+        long generation = next != null ? next : 1;
+        Layout layout = new Layout(String.format(BLOOM_KEY, tenantId, generation), generation, bits, hashes, capacity, values.size());
+        byte[] key = bytes(layout.key());
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String value : values) {
+                setBits(connection, key, value, layout);
+            }
+            return null;
+        });
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.hashCommands().hMSet(meta, Map.of(
+                    bytes("generation"), bytes(String.valueOf(generation)),
+                    bytes("bits"), bytes(String.valueOf(bits)),
+                    bytes("hashes"), bytes(String.valueOf(hashes)),
+                    bytes("capacity"), bytes(String.valueOf(capacity)),
+                    bytes("count"), bytes(String.valueOf(values.size()))));
+            connection.keyCommands().del(bytes(previous != null ? previous.key() : String.format(LEGACY_KEY, tenantId)));
+            return null;
+        });
+    }
+
+    private Layout layout(UUID tenantId) {
+        Map<byte[], byte[]> meta = redisTemplate.execute((RedisCallback<Map<byte[], byte[]>>) connection ->
+                connection.hashCommands().hGetAll(bytes(String.format(META_KEY, tenantId))));
+        if (meta == null || meta.isEmpty()) {
+            return null;
+        }
+        Map<String, Long> fields = new HashMap<>();
+        meta.forEach((field, value) -> fields.put(new String(field, StandardCharsets.UTF_8),
+                Long.parseLong(new String(value, StandardCharsets.UTF_8))));
+        // Only "next" is set while the first filter is still being built
+        Long generation = fields.get("generation");
+        if (generation == null) {
+            return null;
+        }
+        return new Layout(String.format(BLOOM_KEY, tenantId, generation), generation, fields.get("bits"),
+                fields.get("hashes").intValue(), fields.get("capacity"), fields.getOrDefault("count", 0L));
+    }
+
+    private static void setBits(RedisConnection connection, byte[] key, String value, Layout layout) {
+        for (long offset : offsets(value, layout)) {
+            connection.stringCommands().setBit(key, offset, true);
+        }
+    }
+
+    // Kirsch-Mitzenmacher double hashing over a 64-bit FNV-1a hash of the lower-cased value
+    private static long[] offsets(String value, Layout layout) {
+        byte[] bytes = value.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+        long h1 = hash & 0xffffffffL;
+        long h2 = hash >>> 32;
+        long[] offsets = new long[layout.hashes()];
+        for (int i = 0; i < layout.hashes(); i++) {
+            offsets[i] = Math.floorMod(h1 + i * h2, layout.bits());
+        }
+        return offsets;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Layout(String key, long generation, long bits, int hashes, long capacity, long count) {
+    }
+}
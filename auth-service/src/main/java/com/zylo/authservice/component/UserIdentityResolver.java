@@ -0,0 +1,63 @@
+package com.zylo.authservice.component;
+
+import com.zylo.authservice.repository.UserIdentityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves the local users.id of an authenticated request. Tokens carry the Keycloak user id
+ * (sub), but every table that references a user (channel_members, messages, attachment_uploads)
+ * holds users.id. A sub never moves to another row once linked, so cached entries never expire.
+ */
+@Component
+public class UserIdentityResolver {
+
+    @Autowired
+    private UserIdentityRepository userIdentityRepository;
+
+    @Value("${zylo.users.identity-cache.max-size:10000}")
+    private int maxSize;
+
+    // Access-ordered, so a full cache drops its least recently used user in O(1)
+    private final Map<String, UUID> localCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    // Null when the token belongs to no local user (e.g. provisioning has not finished yet)
+    public UUID resolve(Jwt jwt) {
+        String sub = jwt.getSubject();
+        if (sub == null) {
+            return null;
+        }
+        synchronized (localCache) {
+            UUID cached = localCache.get(sub);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        UUID userId = userIdentityRepository.getUserIdByKeycloakId(sub);
+        if (userId == null) {
+            // Users provisioned before keycloak_id existed; Keycloak only sets email_verified once
+            // the user has proven the address, so an unverified email never claims a row
+            String email = jwt.getClaimAsString("email");
+            if (email != null && Boolean.TRUE.equals(jwt.getClaimAsBoolean("email_verified"))) {
+                userId = userIdentityRepository.linkByEmail(sub, email);
+            }
+        }
+        if (userId != null) {
+            synchronized (localCache) {
+                localCache.put(sub, userId);
+            }
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,31 @@
+package com.zylo.authservice.config;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+/**
+ * Skips signature verification and claim validation for tokens that were
+ * already verified by the delegate and have not yet expired.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final VerifiedTokenCache<Jwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxSize) {
+        this.delegate = delegate;
+        this.cache = new VerifiedTokenCache<>(maxSize);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        Jwt cached = cache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        Jwt jwt = delegate.decode(token);
+        cache.put(token, jwt, jwt.getExpiresAt());
+        return jwt;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,12 +21,23 @@ public class JwtAuthConverter implements Converter<Jwt, AbstractAuthenticationTo
 
     private final JwtGrantedAuthoritiesConverter jwtGrantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
 
+    // Authorities are a pure function of the token, so reuse them for as long as the token is valid
+    private final VerifiedTokenCache<Collection<GrantedAuthority>> authorityCache;
+
+    public JwtAuthConverter(@Value("${zylo.jwt.cache.max-size:50000}") int cacheMaxSize) {
+        this.authorityCache = new VerifiedTokenCache<>(cacheMaxSize);
+    }
+
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
-        Collection<GrantedAuthority> authorities = Stream.concat(
-                jwtGrantedAuthoritiesConverter.convert(jwt).stream(),
-                extractRoles(jwt).stream()
-        ).collect(Collectors.toSet());
+        Collection<GrantedAuthority> authorities = authorityCache.get(jwt.getTokenValue());
+        if (authorities == null) {
+            authorities = Stream.concat(
+                    jwtGrantedAuthoritiesConverter.convert(jwt).stream(),
+                    extractRoles(jwt).stream()
+            ).collect(Collectors.toUnmodifiableSet());
+            authorityCache.put(jwt.getTokenValue(), authorities, jwt.getExpiresAt());
+        }
 
         return new JwtAuthenticationToken(jwt, authorities);
     }
@@ -0,0 +1,55 @@
+package com.zylo.authservice.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class JwtDecoderConfig {
+
+    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+    private String jwkSetUri;
+
+    @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
+    private String issuerUri;
+
+    @Value("${zylo.jwt.cache.max-size:50000}")
+    private int cacheMaxSize;
+
+    @Value("${zylo.jwt.jwks.ttl-minutes:15}")
+    private long jwksTtlMinutes;
+
+    // Replaces the Boot auto-configured decoder for both the REST resource server and the WebSocket handshake
+    @Bean
+    public JwtDecoder jwtDecoder() throws MalformedURLException {
+        // Refresh the key set in the background before it expires, so rotation never
+        // puts a JWKS fetch on a request thread; unknown kids still trigger a refetch
+        JWKSource<SecurityContext> jwkSource = JWKSourceBuilder.create(new URL(jwkSetUri))
+                .cache(TimeUnit.MINUTES.toMillis(jwksTtlMinutes), JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                .refreshAheadCache(JWKSourceBuilder.DEFAULT_REFRESH_AHEAD_TIME, true)
+                .build();
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Spring validates the claims below
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+
+        NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        nimbusJwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return new CachingJwtDecoder(nimbusJwtDecoder, cacheMaxSize);
+    }
+}
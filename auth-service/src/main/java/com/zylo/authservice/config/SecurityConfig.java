@@ -34,6 +34,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/v1/accounts/register").permitAll() // Public endpoint
                         .requestMatchers("/ws/**").permitAll() // Allow WebSocket endpoints
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Probes and scraping
                         .anyRequest().authenticated() // All other endpoints require authentication
                 )
                 .addFilterAfter(tenantFilter, AuthenticationFilter.class)
@@ -1,6 +1,6 @@
 package com.zylo.authservice.config;
 
-import com.zylo.authservice.repository.AccountsRepository;
+import com.zylo.authservice.component.TenantResolver;
 import jakarta.persistence.EntityManager;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,7 +9,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.hibernate.Filter;
 import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
@@ -17,7 +16,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.UUID;
 
 @Component
@@ -27,10 +25,7 @@ public class TenantFilter extends OncePerRequestFilter {
     EntityManager entityManager;
 
     @Autowired
-    AccountsRepository accountsRepository;
-
-    @Autowired
-    RedisTemplate<String,String> redisTemplate;
+    TenantResolver tenantResolver;
 
 
     @Override
@@ -45,24 +40,20 @@ public class TenantFilter extends OncePerRequestFilter {
             return;
         }
         Jwt principal = (Jwt) authentication.getPrincipal();
-        ArrayList<Object> groups = (ArrayList<Object>) principal.getClaims().get("groups");
-        String name = groups.get(0).toString().split("/")[1];
-        String tenantUUID = redisTemplate.opsForValue().get("tenant:" + name);
-        if(tenantUUID == null) {
-            tenantUUID = accountsRepository.getTenantIdByName(name);
-            if(tenantUUID == null) {
-                filterChain.doFilter(request,response);
-                return;
-            }
-            redisTemplate.opsForValue().set("tenant:" + name, tenantUUID);
+        UUID tenantId = tenantResolver.resolve(principal);
+        if(tenantId == null) {
+            filterChain.doFilter(request,response);
+            return;
         }
-        UUID tenantId = UUID.fromString(tenantUUID);
         TenantContext.setTenantId(tenantId);
         Session unwrap = entityManager.unwrap(Session.class);
         Filter tenantFilter = unwrap.enableFilter("tenantFilter");
         tenantFilter.setParameter("tenantId", TenantContext.getTenantId());
-        filterChain.doFilter(request,response);
-        TenantContext.clear();
-        unwrap.disableFilter("tenantFilter");
+        try {
+            filterChain.doFilter(request,response);
+        } finally {
+            TenantContext.clear();
+            unwrap.disableFilter("tenantFilter");
+        }
     }
 }
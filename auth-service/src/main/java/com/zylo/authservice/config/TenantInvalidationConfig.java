@@ -0,0 +1,27 @@
+package com.zylo.authservice.config;
+
+import com.zylo.authservice.component.TenantResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+public class TenantInvalidationConfig {
+
+    @Bean
+    public RedisMessageListenerContainer tenantInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TenantResolver tenantResolver) {
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> tenantResolver.evictLocal(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(TenantResolver.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
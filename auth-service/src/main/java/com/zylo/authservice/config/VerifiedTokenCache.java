@@ -0,0 +1,69 @@
+package com.zylo.authservice.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache keyed by the SHA-256 of a raw bearer token.
+ * Entries never outlive the token's own expiry, so a cached value is only
+ * ever served for a token that would still pass verification. A full cache
+ * drops its least recently used entry in O(1); expired ones go when next read.
+ */
+class VerifiedTokenCache<V> {
+
+    private final Map<String, CachedValue<V>> entries;
+
+    VerifiedTokenCache(int maxSize) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    V get(String token) {
+        String key = hash(token);
+        synchronized (entries) {
+            CachedValue<V> cached = entries.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return cached.value();
+        }
+    }
+
+    void put(String token, V value, Instant expiresAt) {
+        if (expiresAt == null) {
+            return;
+        }
+        if (expiresAt.toEpochMilli() <= System.currentTimeMillis()) {
+            return;
+        }
+        String key = hash(token);
+        synchronized (entries) {
+            entries.put(key, new CachedValue<>(value, expiresAt.toEpochMilli()));
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedValue<V>(V value, long expiresAt) {
+    }
+}
@@ -4,11 +4,15 @@ import com.zylo.authservice.dto.InviteUserRequest;
 import com.zylo.authservice.dto.UserCreationResponse;
 import com.zylo.authservice.dto.UserRegistrationRequest;
 import com.zylo.authservice.service.AdminService;
+import com.zylo.authservice.service.BulkImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -20,21 +24,33 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
 
+    @Autowired
+    private BulkImportService bulkImportService;
+
     @PostMapping("/register")
-    public ResponseEntity<Object> registerAdmin(@RequestBody UserRegistrationRequest request) throws URISyntaxException {
-        UserCreationResponse userCreationResponse = adminService.createRootUser(request);
+    public ResponseEntity<Object> registerAdmin(@RequestBody UserRegistrationRequest request,
+                                                @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws URISyntaxException {
+        UserCreationResponse userCreationResponse = adminService.createRootUser(request, idempotencyKey);
         URI uri=new URI("/api/v1/accounts/"+userCreationResponse.getId());
         return ResponseEntity.created(uri).build();
     }
 
 
     @PostMapping("/admin/invite")
-    public ResponseEntity<String> registerUser(@RequestBody InviteUserRequest request) throws URISyntaxException {
-        UserCreationResponse userCreationResponse = adminService.registerInvitedUser(request);
+    public ResponseEntity<String> registerUser(@RequestBody InviteUserRequest request,
+                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws URISyntaxException {
+        UserCreationResponse userCreationResponse = adminService.registerInvitedUser(request, idempotencyKey);
         URI uri=new URI("/api/v1/accounts/"+userCreationResponse.getId());
         return ResponseEntity.created(uri).build();
     }
 
+    // Streams the upload and answers with one NDJSON result line per row as batches complete
+    @PostMapping(value = "/admin/import", consumes = {BulkImportService.CSV, BulkImportService.NDJSON}, produces = BulkImportService.NDJSON)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(BulkImportService.NDJSON);
+        bulkImportService.importUsers(request.getInputStream(), request.getContentType(), response.getOutputStream());
+    }
+
 
 
 
@@ -0,0 +1,23 @@
+package com.zylo.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkImportRowResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String SKIPPED = "SKIPPED";
+    public static final String FAILED = "FAILED";
+
+    private long row;
+    private String status;
+    private UUID id;
+    private String username;
+    private String message;
+}
@@ -12,5 +12,4 @@ public class InviteUserRequest {
     private String email;
     private String firstName;
     private String lastName;
-    private String password;
 }
@@ -0,0 +1,90 @@
+package com.zylo.authservice.entity;
+
+import com.zylo.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "provisioning_outbox")
+@Getter
+@Setter
+public class ProvisioningTask extends BaseEntity {
+
+    public static final String ROOT_USER = "ROOT_USER";
+    public static final String INVITED_USER = "INVITED_USER";
+
+    public static final String PENDING = "PENDING";
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "idempotency_key", nullable = false, unique = true)
+    private String idempotencyKey;
+
+    // Null on tasks created before request hashes were stored
+    @Column(name = "request_hash")
+    private String requestHash;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false)
+    private String status = PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    // Only written by the claim and lease renewal statements, so saving progress never shortens a lease
+    @Column(name = "locked_until", insertable = false, updatable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    // Cleared when a failed task deletes the user (and tenant) it was provisioning
+    @Column(name = "user_id")
+    private UUID userId;
+
+    @Column(name = "tenant_id")
+    private UUID tenantId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    @Column(nullable = false)
+    private String role;
+
+    private String organization;
+
+    @Column(name = "invited_by")
+    private String invitedBy;
+
+    @Column(name = "keycloak_group_id")
+    private String keycloakGroupId;
+
+    @Column(name = "keycloak_user_id")
+    private String keycloakUserId;
+
+    @Column(name = "email_sent", nullable = false)
+    private boolean emailSent;
+}
@@ -21,7 +21,7 @@ public class User extends BaseEntity {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tenant_id", nullable = false)
     private Tenant tenant;
 
@@ -46,4 +46,8 @@ public class User extends BaseEntity {
     private String status;
 
     private String role;
+
+    // Keycloak user id, i.e. the sub of this user's tokens
+    @Column(name = "keycloak_id", unique = true)
+    private String keycloakId;
 }
@@ -1,29 +1,53 @@
 package com.zylo.authservice.repository;
 
+import com.zylo.authservice.component.UserBloomFilter;
 import com.zylo.authservice.config.TenantContext;
 import com.zylo.authservice.dto.UserCreationResponse;
+import com.zylo.authservice.entity.ProvisioningTask;
 import com.zylo.authservice.entity.Tenant;
 import com.zylo.authservice.entity.User;
+import com.zylo.authservice.exception.ResourceConflictException;
+import com.zylo.common.config.CompactRedisSerializer;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.transaction.Transactional;
 import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Repository;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Transactional
 @Repository
 public class AccountsRepository {
 
+    private static final Logger log = LoggerFactory.getLogger(AccountsRepository.class);
+
     public AccountsRepository() {
 
     }
@@ -34,9 +58,56 @@ public class AccountsRepository {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Autowired
+    private UserBloomFilter userBloomFilter;
+
     private static final String TENANTS_KEY = "tenants";
-    private static final String USERNAME_KEY_PREFIX = "tenant:%s:usernames";
-    private static final String EMAIL_KEY_PREFIX = "tenant:%s:emails";
+
+    // Reads both the compact and the legacy JDK encoding; set members are plain strings
+    private static final CompactRedisSerializer MEMBER_DECODER = new CompactRedisSerializer();
+
+    // Set members are matched by their encoded bytes, so members written by the JDK serializer never match
+    // lookups encoded by the compact one (or the other way round). Re-encodes the tenants set with the
+    // configured serializer on every start; SADD/SREM are idempotent, so nodes starting together agree.
+    @EventListener(ApplicationReadyEvent.class)
+    @SuppressWarnings("unchecked")
+    public void reencodeTenantsCache() {
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        if (serializer == null) {
+            return;
+        }
+        byte[] key = TENANTS_KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            Long reencoded = redisTemplate.execute((RedisCallback<Long>) connection -> {
+                Set<byte[]> members = connection.setCommands().sMembers(key);
+                long count = 0;
+                for (byte[] member : members != null ? members : Set.<byte[]>of()) {
+                    byte[] current;
+                    try {
+                        current = serializer.serialize(MEMBER_DECODER.deserialize(member));
+                    } catch (SerializationException e) {
+                        // Unreadable: drop it, the tenant is re-added on its next lookup
+                        current = null;
+                    }
+                    if (current != null && Arrays.equals(member, current)) {
+                        continue;
+                    }
+                    if (current != null) {
+                        connection.setCommands().sAdd(key, current);
+                    }
+                    connection.setCommands().sRem(key, member);
+                    count++;
+                }
+                return count;
+            });
+            if (reencoded != null && reencoded > 0) {
+                log.info("Re-encoded {} members of the Redis tenants set", reencoded);
+            }
+        } catch (Exception e) {
+            // Only a cache: lookups that miss fall back to the database
+            log.warn("Could not re-encode the Redis tenants set: {}", e.getMessage());
+        }
+    }
 
     public User createUser(User user) {
         UUID tenantId = TenantContext.getTenantId();
@@ -75,35 +146,161 @@ public class AccountsRepository {
             session.enableFilter("tenantFilter").setParameter("tenantId", tenantId);
         }
 
-        String usernameKey = String.format(USERNAME_KEY_PREFIX, tenantId);
-        String emailKey = String.format(EMAIL_KEY_PREFIX, tenantId);
+        String username = UserBloomFilter.USERNAME + user.getUsername();
+        ensureBloomFilterSeeded(tenantId);
+
+        // Usernames are unique per tenant, so Postgres is only asked when the tenant's filter says it may be taken
+        if (userBloomFilter.mightContainAny(tenantId, username)) {
+            CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+            Root<User> userRoot = query.from(User.class);
+            query.select(criteriaBuilder.count(userRoot));
+            query.where(criteriaBuilder.equal(userRoot.get("tenant").get("id"), tenantId),
+                    criteriaBuilder.equal(criteriaBuilder.lower(userRoot.get("username")), user.getUsername().toLowerCase()));
+            if (entityManager.createQuery(query).getSingleResult() > 0) {
+                throw new ResourceConflictException("User with same username already exists in tenant");
+            }
+        }
+        // Emails are unique across all tenants, which no per-tenant filter can rule out
+        if (!getTakenEmails(List.of(user.getEmail())).isEmpty()) {
+            throw new ResourceConflictException("User with same email already exists");
+        }
+
+        persistUnique(user);
+        userBloomFilter.add(tenantId, username);
+        return user;
+    }
 
-        Boolean usernameExists = redisTemplate.opsForSet().isMember(usernameKey, user.getUsername());
-        Boolean emailExists = redisTemplate.opsForSet().isMember(emailKey, user.getEmail());
+    // Unique constraints catch concurrent registrations and rows the filter cannot know about.
+    // flush() reports them as a PersistenceException wrapping Hibernate's ConstraintViolationException.
+    void persistUnique(User user) {
+        try {
+            entityManager.persist(user);
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            if (isConstraintViolation(e)) {
+                throw new ResourceConflictException("User with same username or email already exists");
+            }
+            throw e;
+        }
+    }
 
-        if (Boolean.TRUE.equals(usernameExists) || Boolean.TRUE.equals(emailExists)) {
-            throw new RuntimeException("User with same username or email already exists in tenant");
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        CriteriaQuery<User> query = criteriaBuilder.createQuery(User.class);
+    // Lower-cased usernames and emails from the given candidates that are already taken.
+    // Usernames the tenant's Bloom filter rules out never reach the query; emails always do.
+    public Set<String> getTakenUsernamesAndEmails(UUID tenantId, Collection<String> usernames, Collection<String> emails) {
+        ensureBloomFilterSeeded(tenantId);
+        List<String> maybeUsernames = filterMaybeTaken(tenantId, UserBloomFilter.USERNAME, usernames);
+        Set<String> taken = getTakenEmails(emails);
+        if (maybeUsernames.isEmpty()) {
+            return taken;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = cb.createQuery(String.class);
         Root<User> userRoot = query.from(User.class);
-        query.where(
-                criteriaBuilder.or(
-                        criteriaBuilder.equal(userRoot.get("username"), user.getUsername()),
-                        criteriaBuilder.equal(userRoot.get("email"), user.getEmail())
-                )
-        );
+        query.select(cb.lower(userRoot.get("username")));
+        query.where(cb.equal(userRoot.get("tenant").get("id"), tenantId), cb.lower(userRoot.get("username")).in(maybeUsernames));
+        taken.addAll(entityManager.createQuery(query).getResultList());
+        return taken;
+    }
 
-        if (!entityManager.createQuery(query).getResultList().isEmpty()) {
-            redisTemplate.opsForSet().add(usernameKey, user.getUsername());
-            redisTemplate.opsForSet().add(emailKey, user.getEmail());
-            throw new RuntimeException("User with same username or email already exists in tenant");
+    // Native so the session's tenant filter does not hide other tenants' users
+    @SuppressWarnings("unchecked")
+    private Set<String> getTakenEmails(Collection<String> emails) {
+        Set<String> taken = new HashSet<>();
+        if (emails.isEmpty()) {
+            return taken;
         }
+        List<String> lowered = emails.stream().map(String::toLowerCase).toList();
+        taken.addAll(entityManager.createNativeQuery("SELECT lower(email) FROM users WHERE lower(email) IN (:emails)")
+                .setParameter("emails", lowered)
+                .getResultList());
+        return taken;
+    }
 
-        entityManager.persist(user);
-        redisTemplate.opsForSet().add(usernameKey, user.getUsername());
-        redisTemplate.opsForSet().add(emailKey, user.getEmail());
-        return user;
+    // Lower-cased like the filter's own hashing, so the returned values can be matched against lower(column)
+    private List<String> filterMaybeTaken(UUID tenantId, String prefix, Collection<String> candidates) {
+        List<String> values = candidates.stream().map(String::toLowerCase).distinct().toList();
+        boolean[] mightContain = userBloomFilter.mightContain(tenantId, values.stream().map(v -> prefix + v).toList());
+        List<String> maybeTaken = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            if (mightContain[i]) {
+                maybeTaken.add(values.get(i));
+            }
+        }
+        return maybeTaken;
+    }
+
+    // Tenants that predate the filter, lost it with Redis or outgrew it get it rebuilt from their rows,
+    // so a negative answer really means "not in the database"
+    private void ensureBloomFilterSeeded(UUID tenantId) {
+        if (userBloomFilter.exists(tenantId)) {
+            return;
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = cb.createQuery(String.class);
+        Root<User> userRoot = query.from(User.class);
+        query.select(userRoot.get("username"));
+        query.where(cb.equal(userRoot.get("tenant").get("id"), tenantId));
+        List<String> values = new ArrayList<>();
+        for (String username : entityManager.createQuery(query).getResultList()) {
+            values.add(UserBloomFilter.USERNAME + username);
+        }
+        userBloomFilter.rebuild(tenantId, values);
+    }
+
+    // Inserts a batch of invited users with their provisioning tasks (tasks.get(i) belongs to users.get(i))
+    // in one transaction. Relies on hibernate.jdbc.batch_size for the inserts and pipelines the Bloom filter update.
+    public void createInvitedUsers(UUID tenantId, List<User> users, List<ProvisioningTask> tasks) {
+        Tenant tenant = entityManager.getReference(Tenant.class, tenantId);
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            user.setTenant(tenant);
+            entityManager.persist(user);
+            ProvisioningTask task = tasks.get(i);
+            task.setUserId(user.getId());
+            task.setTenantId(tenantId);
+            entityManager.persist(task);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> values = new ArrayList<>(users.size());
+        for (User user : users) {
+            values.add(UserBloomFilter.USERNAME + user.getUsername());
+        }
+        userBloomFilter.addAll(tenantId, values);
+    }
+
+    // Rolls back a user whose Keycloak account could not be provisioned, so the email and username can
+    // sign up again. Such a user never logged in; channel memberships an admin added are all it can own.
+    // With deleteTenant the user's tenant goes too once it has no users left. Returns whether it did.
+    public boolean deleteUnprovisionedUser(UUID userId, UUID tenantId, boolean deleteTenant) {
+        entityManager.createNativeQuery("DELETE FROM channel_members WHERE user_id = :userId")
+                .setParameter("userId", userId)
+                .executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM users WHERE id = :userId")
+                .setParameter("userId", userId)
+                .executeUpdate();
+        if (!deleteTenant || tenantId == null) {
+            return false;
+        }
+        int deleted = entityManager.createNativeQuery(
+                        "DELETE FROM tenants t WHERE t.id = :tenantId AND NOT EXISTS (SELECT 1 FROM users u WHERE u.tenant_id = t.id)")
+                .setParameter("tenantId", tenantId)
+                .executeUpdate();
+        if (deleted == 0) {
+            return false;
+        }
+        redisTemplate.opsForSet().remove(TENANTS_KEY, tenantId.toString());
+        return true;
     }
 
     public Tenant getTenantById(UUID name) {
@@ -117,12 +314,22 @@ public class AccountsRepository {
     public User getUserById(String id) {
         CriteriaQuery<User> query = this.entityManager.getCriteriaBuilder().createQuery(User.class);
         Root<User> userRoot = query.from(User.class);
+        userRoot.fetch("tenant");
         CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
         query.where(cb.equal(userRoot.get("id"), UUID.fromString(id)));
         User user = entityManager.createQuery(query).getSingleResult();
         return user;
     }
 
+    public boolean tenantExists(String name) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Tenant> tenantRoot = query.from(Tenant.class);
+        query.select(cb.count(tenantRoot));
+        query.where(cb.equal(cb.lower(tenantRoot.get("name")), name.toLowerCase()));
+        return entityManager.createQuery(query).getSingleResult() > 0;
+    }
+
     public String getTenantIdByName(String name) {
         CriteriaQuery<Tenant> query = this.entityManager.getCriteriaBuilder().createQuery(Tenant.class);
         Root<Tenant> tenantRoot = query.from(Tenant.class);
@@ -134,28 +341,63 @@ public class AccountsRepository {
 
     public Page<UserCreationResponse> getUsersByTenantId(UUID tenantId, int page, int size, String searchValue) {
         CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        String search = searchValue.trim().toLowerCase();
+
         CriteriaQuery<User> query = cb.createQuery(User.class);
         Root<User> userRoot = query.from(User.class);
-        if(!searchValue.trim().isEmpty()) {
-            query.where(
-                    cb.and(
-                            cb.equal(userRoot.get("tenant").get("id"), tenantId),
-                            cb.or(
-                                    cb.like(cb.lower(userRoot.get("username")), "%" + searchValue.toLowerCase() + "%"),
-                                    cb.like(cb.lower(userRoot.get("email")), "%" + searchValue.toLowerCase() + "%"),
-                                    cb.like(cb.lower(userRoot.get("firstName")), "%" + searchValue.toLowerCase() + "%"),
-                                    cb.like(cb.lower(userRoot.get("lastName")), "%" + searchValue.toLowerCase() + "%")
-                            )
-                    )
-            );
+        userRoot.fetch("tenant");
+        query.where(getUserSearchPredicate(cb, userRoot, tenantId, search));
+        if (search.isEmpty()) {
+            query.orderBy(cb.asc(userRoot.get("username")));
+        } else {
+            // Rank exact username hits first, then prefix hits, then plain substring hits
+            String prefix = escapeLike(search) + "%";
+            Expression<Integer> rank = cb.<Integer>selectCase()
+                    .when(cb.equal(cb.lower(userRoot.get("username")), search), 0)
+                    .when(cb.like(cb.lower(userRoot.get("username")), prefix, '\\'), 1)
+                    .when(cb.or(
+                            cb.like(cb.lower(userRoot.get("email")), prefix, '\\'),
+                            cb.like(cb.lower(userRoot.get("firstName")), prefix, '\\'),
+                            cb.like(cb.lower(userRoot.get("lastName")), prefix, '\\')
+                    ), 2)
+                    .otherwise(3);
+            query.orderBy(cb.asc(rank), cb.asc(userRoot.get("username")));
         }
         List<User> users = entityManager.createQuery(query)
                 .setFirstResult(page * size)
                 .setMaxResults(size)
                 .getResultList();
+
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<User> countRoot = countQuery.from(User.class);
+        countQuery.select(cb.count(countRoot)).where(getUserSearchPredicate(cb, countRoot, tenantId, search));
+        Long total = entityManager.createQuery(countQuery).getSingleResult();
+
         List<UserCreationResponse> responses = users.stream()
                 .map(UserCreationResponse::getUserResponse)
                 .toList();
-        return new PageImpl<>(responses);
+        return new PageImpl<>(responses, PageRequest.of(page, size), total);
+    }
+
+    private static Predicate getUserSearchPredicate(CriteriaBuilder cb, Root<User> userRoot, UUID tenantId, String search) {
+        Predicate tenantPredicate = cb.equal(userRoot.get("tenant").get("id"), tenantId);
+        if (search.isEmpty()) {
+            return tenantPredicate;
+        }
+        // lower(col) LIKE '%x%' is served by the gin_trgm_ops indexes on the same expressions
+        String pattern = "%" + escapeLike(search) + "%";
+        return cb.and(
+                tenantPredicate,
+                cb.or(
+                        cb.like(cb.lower(userRoot.get("username")), pattern, '\\'),
+                        cb.like(cb.lower(userRoot.get("email")), pattern, '\\'),
+                        cb.like(cb.lower(userRoot.get("firstName")), pattern, '\\'),
+                        cb.like(cb.lower(userRoot.get("lastName")), pattern, '\\')
+                )
+        );
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package com.zylo.authservice.repository;
+
+import com.zylo.authservice.entity.ProvisioningTask;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Transactional
+@Repository
+public class ProvisioningOutboxRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Claims due tasks, plus tasks whose lease expired because a node died mid-task.
+    // SKIP LOCKED lets every node poll the same table without handing out a task twice.
+    private static final String CLAIM_DUE_TASKS = """
+            UPDATE provisioning_outbox
+               SET status = 'IN_PROGRESS',
+                   attempts = attempts + 1,
+                   locked_until = now() + make_interval(secs => :leaseSeconds),
+                   updated_at = now()
+             WHERE id IN (
+                   SELECT id FROM provisioning_outbox
+                    WHERE (status = 'PENDING' AND next_attempt_at <= now())
+                       OR (status = 'IN_PROGRESS' AND locked_until < now())
+                    ORDER BY next_attempt_at
+                    LIMIT :batchSize
+                    FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """;
+
+    // Fenced on attempts: a task reclaimed after its lease expired has been claimed again since
+    private static final String RENEW_LEASE = """
+            UPDATE provisioning_outbox
+               SET locked_until = now() + make_interval(secs => :leaseSeconds)
+             WHERE id = :id AND status = 'IN_PROGRESS' AND attempts = :attempts
+            """;
+
+    public ProvisioningTask save(ProvisioningTask task) {
+        if (task.getId() == null) {
+            entityManager.persist(task);
+            return task;
+        }
+        return entityManager.merge(task);
+    }
+
+    public ProvisioningTask getByIdempotencyKey(String idempotencyKey) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProvisioningTask> query = cb.createQuery(ProvisioningTask.class);
+        Root<ProvisioningTask> taskRoot = query.from(ProvisioningTask.class);
+        query.where(cb.equal(taskRoot.get("idempotencyKey"), idempotencyKey));
+        List<ProvisioningTask> tasks = entityManager.createQuery(query).getResultList();
+        return tasks.isEmpty() ? null : tasks.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<ProvisioningTask> claimDueTasks(int batchSize, int leaseSeconds) {
+        return entityManager.createNativeQuery(CLAIM_DUE_TASKS, ProvisioningTask.class)
+                .setParameter("batchSize", batchSize)
+                .setParameter("leaseSeconds", leaseSeconds)
+                .getResultList();
+    }
+
+    // False when another worker has claimed the task since this one did
+    public boolean renewLease(UUID id, int attempts, int leaseSeconds) {
+        return entityManager.createNativeQuery(RENEW_LEASE)
+                .setParameter("id", id)
+                .setParameter("attempts", attempts)
+                .setParameter("leaseSeconds", leaseSeconds)
+                .executeUpdate() == 1;
+    }
+}
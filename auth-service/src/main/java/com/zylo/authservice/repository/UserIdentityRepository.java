@@ -0,0 +1,59 @@
+package com.zylo.authservice.repository;
+
+import com.zylo.authservice.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maps Keycloak user ids (the JWT sub) to local users.id values.
+ */
+@Transactional
+@Repository
+public class UserIdentityRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UUID getUserIdByKeycloakId(String keycloakId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<User> user = query.from(User.class);
+        query.select(user.get("id")).where(cb.equal(user.get("keycloakId"), keycloakId));
+        List<UUID> ids = entityManager.createQuery(query).setMaxResults(1).getResultList();
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    // Idempotent; a row already linked to a different Keycloak account is left alone
+    public boolean linkKeycloakId(UUID userId, String keycloakId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = cb.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+        update.set(user.<String>get("keycloakId"), keycloakId)
+                .where(cb.equal(user.get("id"), userId),
+                        cb.or(cb.isNull(user.get("keycloakId")), cb.equal(user.get("keycloakId"), keycloakId)));
+        return entityManager.createQuery(update).executeUpdate() == 1;
+    }
+
+    // For rows provisioned before keycloak_id was recorded: claims the unlinked row with this email
+    public UUID linkByEmail(String keycloakId, String email) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<User> user = query.from(User.class);
+        query.select(user.get("id"))
+                .where(cb.equal(cb.lower(user.get("email")), email.toLowerCase()), cb.isNull(user.get("keycloakId")));
+        List<UUID> ids = entityManager.createQuery(query).setMaxResults(1).getResultList();
+        if (ids.isEmpty() || !linkKeycloakId(ids.get(0), keycloakId)) {
+            return null;
+        }
+        return ids.get(0);
+    }
+}
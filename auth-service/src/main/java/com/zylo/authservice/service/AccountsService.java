@@ -1,13 +1,12 @@
 package com.zylo.authservice.service;
 
 import com.zylo.authservice.component.AccountComponent;
-import com.zylo.authservice.dto.InviteUserRequest;
-import com.zylo.authservice.dto.UserRegistrationRequest;
+import com.zylo.authservice.entity.ProvisioningTask;
 import com.zylo.authservice.exception.InsufficientInfoException;
+import com.zylo.authservice.exception.ResourceConflictException;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.core.Response;
-import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.RealmResource;
-import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +16,12 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 
+/**
+ * Keycloak admin operations used by the provisioning outbox.
+ * Groups and users are tagged with the id of the task that created them; a retry that hits a 409
+ * (it crashed before recording the id) only adopts the existing object when it carries its own tag.
+ * Anything else that already exists is a conflict and fails the task.
+ */
 @Service
 public class AccountsService {
 
@@ -28,78 +33,118 @@ public class AccountsService {
 
     private final AccountComponent accountComponent;
 
-    public void createUserInAccounts(UserRegistrationRequest request) {
-        accountComponent.init();
-        Keycloak keycloak = accountComponent.getKeycloak();
-        RealmResource realmResource = keycloak.realm(accountComponent.getRealm());
-        if (request.getOrganization() == null || request.getOrganization().isEmpty()) {
-            throw new InsufficientInfoException("Organization field is required for admin registration");
-        }
-        String groupId = createGroup(realmResource, request.getOrganization());
-        UserRepresentation user = getAdminUserRepresentation(request, "T_ADMIN");
-        CredentialRepresentation passwordCred = getCredentialRepresentation(request);
-        user.setCredentials(Collections.singletonList(passwordCred));
-        Response response = realmResource.users().create(user);
-        if (response.getStatus() != 201) {
-            throw new RuntimeException("failed to create user: " + response.getStatusInfo());
-        }
-        String userId = response.getLocation().getPath().replaceAll(".*/([^/]+)$", "$1");
-        realmResource.users().get(userId).joinGroup(groupId);
-        realmResource.users().get(userId).sendVerifyEmail();
-    }
+    public static final String T_ADMIN = "T_ADMIN";
+    public static final String T_USER = "T_USER";
+
+    private static final String TASK_ATTRIBUTE = "zylo_provisioning_task";
+    private static final String VERIFY_EMAIL = "VERIFY_EMAIL";
+    private static final String UPDATE_PASSWORD = "UPDATE_PASSWORD";
+    private static final List<String> SETUP_ACTIONS = List.of(VERIFY_EMAIL, UPDATE_PASSWORD);
 
-    private static String createGroup(RealmResource realmResource, String orgName) {
+    // Root users get a new group named after their organization; an existing organization is never joined
+    public String createGroup(ProvisioningTask task) {
+        RealmResource realmResource = getRealmResource();
         GroupRepresentation group = new GroupRepresentation();
-        group.setName(orgName);
+        group.setName(task.getOrganization());
+        group.setAttributes(Map.of(TASK_ATTRIBUTE, List.of(task.getId().toString())));
         Response groupResponse = realmResource.groups().add(group);
+        if (groupResponse.getStatus() == 409) {
+            String groupId = findGroupIdByOrg(task.getOrganization(), realmResource);
+            if (groupId != null && createdBy(realmResource.groups().group(groupId).toRepresentation().getAttributes(), task)) {
+                return groupId;
+            }
+            throw new ResourceConflictException("Organization " + task.getOrganization() + " already exists");
+        }
         if (groupResponse.getStatus() != 201) {
             throw new RuntimeException("Failed to create tenant");
         }
-        return groupResponse.getLocation().getPath().replaceAll(".*/([^/]+)$", "$1");
+        return getCreatedId(groupResponse);
     }
 
-    public void registerInvitedUser(InviteUserRequest request) {
-        String orgName = getOrgName();
-        String username = getPreferredUsername();
-        Keycloak keycloak = accountComponent.getKeycloak();
-        String realm = accountComponent.getRealm();
-        RealmResource realmResource = keycloak.realm(realm);
-
-        String groupId = null;
-        if (username != null && !username.isEmpty()) {
-            groupId = getGroupId(username, realmResource);
+    // Invited users join the inviter's group, falling back to the organization name
+    public String resolveInviteGroup(String inviter, String orgName) {
+        RealmResource realmResource = getRealmResource();
+        if (inviter != null && !inviter.isEmpty()) {
+            return getGroupId(inviter, realmResource);
         } else if (orgName != null && !orgName.isEmpty()) {
-            groupId = getGroupIdByOrg(orgName, realmResource);
-        } else {
-            throw new RuntimeException("Either invitedBy or organization must be provided");
+            String groupId = findGroupIdByOrg(orgName, realmResource);
+            if (groupId == null) {
+                throw new RuntimeException("Group for organization " + orgName + " not found");
+            }
+            return groupId;
         }
+        throw new RuntimeException("Either invitedBy or organization must be provided");
+    }
 
-        UserRepresentation user = getAdminUserRepresentation(request, "T_USER");
-
-        CredentialRepresentation passwordCred = getCredentialRepresentation(request);
-        user.setCredentials(Collections.singletonList(passwordCred));
-
+    // No password is ever stored: the user sets one from the account setup email
+    public String createUser(ProvisioningTask task) {
+        RealmResource realmResource = getRealmResource();
+        UserRepresentation user = getUserRepresentation(task);
         Response response = realmResource.users().create(user);
+        if (response.getStatus() == 409) {
+            String userId = findUserId(task.getUsername(), realmResource);
+            if (userId != null && createdBy(realmResource.users().get(userId).toRepresentation().getAttributes(), task)) {
+                return userId;
+            }
+            throw new ResourceConflictException("User " + task.getUsername() + " already exists");
+        }
         if (response.getStatus() != 201) {
             throw new RuntimeException("Failed to create user: " + response.getStatusInfo());
         }
+        return getCreatedId(response);
+    }
 
-        String userId = response.getLocation().getPath().replaceAll(".*/([^/]+)$", "$1");
-        realmResource.users().get(userId).joinGroup(groupId);
-        realmResource.users().get(userId).sendVerifyEmail();
+    public void joinGroup(String userId, String groupId) {
+        getRealmResource().users().get(userId).joinGroup(groupId);
     }
 
-    private static String getPreferredUsername() {
-        return ((Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getClaims().get("preferred_username").toString();
+    public void sendSetupEmail(String userId) {
+        getRealmResource().users().get(userId).executeActionsEmail(SETUP_ACTIONS);
     }
 
-    private static String getGroupIdByOrg(String orgName, RealmResource realmResource) {
-        String groupId;
-        groupId = realmResource.groups().groups().stream().filter(group -> group.getName().equals(orgName)).map(GroupRepresentation::getId).findFirst().orElse(null);
-        if (groupId == null) {
-            throw new RuntimeException("Group for organization " + orgName + " not found");
+    // Rollback of a task that failed for good; only ever called with ids the task created itself
+    public void deleteUser(String userId) {
+        Response response = getRealmResource().users().delete(userId);
+        if (response.getStatus() != 204 && response.getStatus() != 404) {
+            throw new RuntimeException("Failed to delete user: " + response.getStatusInfo());
         }
-        return groupId;
+    }
+
+    public void deleteGroup(String groupId) {
+        try {
+            getRealmResource().groups().group(groupId).remove();
+        } catch (NotFoundException e) {
+            // Already gone
+        }
+    }
+
+    private RealmResource getRealmResource() {
+        accountComponent.init();
+        return accountComponent.getKeycloak().realm(accountComponent.getRealm());
+    }
+
+    private static String getCreatedId(Response response) {
+        return response.getLocation().getPath().replaceAll(".*/([^/]+)$", "$1");
+    }
+
+    private static String findUserId(String username, RealmResource realmResource) {
+        return realmResource.users().searchByUsername(username, true).stream()
+                .filter(u -> u.getUsername().equalsIgnoreCase(username))
+                .map(UserRepresentation::getId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    static String getPreferredUsername() {
+        return ((Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getClaims().get("preferred_username").toString();
+    }
+
+    private static String findGroupIdByOrg(String orgName, RealmResource realmResource) {
+        return realmResource.groups().groups(orgName, 0, 100).stream()
+                .filter(group -> group.getName().equals(orgName))
+                .map(GroupRepresentation::getId)
+                .findFirst()
+                .orElse(null);
     }
 
     private static String getGroupId(String userName, RealmResource realmResource) {
@@ -115,29 +160,27 @@ public class AccountsService {
         return groupId;
     }
 
-    private static String getOrgName() {
+    static String getOrgName() {
         return ((ArrayList) ((Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getClaims().get("groups")).get(0).toString().split("/")[1];
     }
 
-    private static CredentialRepresentation getCredentialRepresentation(InviteUserRequest request) {
-        CredentialRepresentation passwordCred = new CredentialRepresentation();
-        passwordCred.setType(CredentialRepresentation.PASSWORD);
-        passwordCred.setValue(request.getPassword());
-        passwordCred.setTemporary(false);
-        return passwordCred;
+    private static boolean createdBy(Map<String, List<String>> attributes, ProvisioningTask task) {
+        return attributes != null && attributes.getOrDefault(TASK_ATTRIBUTE, List.of()).contains(task.getId().toString());
     }
 
-    private static UserRepresentation getAdminUserRepresentation(InviteUserRequest request, String role) {
+    private static UserRepresentation getUserRepresentation(ProvisioningTask task) {
         UserRepresentation user = new UserRepresentation();
-        user.setUsername(request.getUsername());
-        user.setEmail(request.getEmail());
-        user.setFirstName(request.getFirstName());
-        user.setLastName(request.getLastName());
+        user.setUsername(task.getUsername());
+        user.setEmail(task.getEmail());
+        user.setFirstName(task.getFirstName());
+        user.setLastName(task.getLastName());
         user.setEnabled(true);
         user.setEmailVerified(false);
+        user.setRequiredActions(SETUP_ACTIONS);
+        user.setAttributes(Map.of(TASK_ATTRIBUTE, List.of(task.getId().toString())));
         Map<String, List<String>> clientRoles = new HashMap<>();
         String clientId = "zylo-web";
-        List<String> roles = List.of(role);
+        List<String> roles = List.of(task.getRole());
         clientRoles.put(clientId, roles);
         user.setClientRoles(clientRoles);
         return user;
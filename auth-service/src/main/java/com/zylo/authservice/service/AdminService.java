@@ -1,18 +1,28 @@
 package com.zylo.authservice.service;
 
+import com.zylo.authservice.component.TenantResolver;
 import com.zylo.authservice.config.TenantContext;
 import com.zylo.authservice.dto.InviteUserRequest;
 import com.zylo.authservice.dto.UserCreationResponse;
 import com.zylo.authservice.dto.UserRegistrationRequest;
+import com.zylo.authservice.entity.ProvisioningTask;
 import com.zylo.authservice.entity.Tenant;
 import com.zylo.authservice.entity.User;
+import com.zylo.authservice.exception.InsufficientInfoException;
+import com.zylo.authservice.exception.ResourceConflictException;
 import com.zylo.authservice.exception.ResourceNotFoundException;
 import com.zylo.authservice.repository.AccountsRepository;
+import com.zylo.authservice.repository.ProvisioningOutboxRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
 @Service
 @Transactional
 public class AdminService {
@@ -23,12 +33,39 @@ public class AdminService {
     private AccountsRepository accountsRepository;
 
     @Autowired
-    private AccountsService accountsService;
+    private ProvisioningOutboxRepository provisioningOutboxRepository;
+
+    @Autowired
+    private TenantResolver tenantResolver;
 
-    public UserCreationResponse createRootUser(UserRegistrationRequest request) {
-        accountsService.createUserInAccounts(request);
+    // The Keycloak side (group, user, membership, verify email) is queued in the same
+    // transaction as the local row and carried out by ProvisioningWorker
+    public UserCreationResponse createRootUser(UserRegistrationRequest request, String idempotencyKey) {
+        if (request.getOrganization() == null || request.getOrganization().isEmpty()) {
+            throw new InsufficientInfoException("Organization field is required for admin registration");
+        }
+        // Anonymous caller: the key is scoped to the registering email, and a replay has to be the same registration
+        String key = getIdempotencyKey(idempotencyKey, ProvisioningTask.ROOT_USER, request.getEmail().toLowerCase(), request);
+        ProvisioningTask existing = provisioningOutboxRepository.getByIdempotencyKey(key);
+        if (existing != null) {
+            if (!isSameRequest(existing, request)) {
+                throw new ResourceConflictException("Idempotency key already used for a different registration");
+            }
+            return UserCreationResponse.getUserResponse(accountsRepository.getUserById(existing.getUserId().toString()));
+        }
+        // Registration only ever creates an organization, joining one takes an invite
+        if (accountsRepository.tenantExists(request.getOrganization())) {
+            throw new ResourceConflictException("Organization " + request.getOrganization() + " already exists");
+        }
         User user = getUserAdminUser(request);
         User rootUser = accountsRepository.createUser(user);
+        ProvisioningTask task = getProvisioningTask(key, ProvisioningTask.ROOT_USER, AccountsService.T_ADMIN, request);
+        task.setUserId(rootUser.getId());
+        task.setTenantId(rootUser.getTenant().getId());
+        task.setOrganization(request.getOrganization());
+        provisioningOutboxRepository.save(task);
+        // A tenant with this name may have existed before; drop any cached id on every node once committed
+        tenantResolver.invalidate(rootUser.getTenant().getName());
         return UserCreationResponse.getUserResponse(rootUser);
     }
 
@@ -39,7 +76,7 @@ public class AdminService {
         return getUser(request, ADMIN, tenant);
     }
 
-    private static User getUser(InviteUserRequest request, String role, Tenant tenant) {
+    static User getUser(InviteUserRequest request, String role, Tenant tenant) {
         User user = new User();
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
@@ -51,11 +88,78 @@ public class AdminService {
         return user;
     }
 
-    public UserCreationResponse registerInvitedUser(InviteUserRequest request) {
-        accountsService.registerInvitedUser(request);
+    public UserCreationResponse registerInvitedUser(InviteUserRequest request, String idempotencyKey) {
+        String inviter = AccountsService.getPreferredUsername();
+        String key = getIdempotencyKey(idempotencyKey, ProvisioningTask.INVITED_USER, TenantContext.getTenantId() + "/" + inviter, request);
+        ProvisioningTask existing = provisioningOutboxRepository.getByIdempotencyKey(key);
+        if (existing != null) {
+            if (!isSameRequest(existing, request)) {
+                throw new ResourceConflictException("Idempotency key already used for a different invitation");
+            }
+            return UserCreationResponse.getUserResponse(accountsRepository.getUserById(existing.getUserId().toString()));
+        }
         User user = getUser(request);
-        User rootUser = accountsRepository.createUser(user);
-        return UserCreationResponse.getUserResponse(rootUser);
+        User invitedUser = accountsRepository.createUser(user);
+        // The worker has no security context, so capture who invited and from which organization now
+        ProvisioningTask task = getProvisioningTask(key, ProvisioningTask.INVITED_USER, AccountsService.T_USER, request);
+        task.setUserId(invitedUser.getId());
+        task.setTenantId(invitedUser.getTenant().getId());
+        task.setInvitedBy(inviter);
+        task.setOrganization(AccountsService.getOrgName());
+        provisioningOutboxRepository.save(task);
+        return UserCreationResponse.getUserResponse(invitedUser);
+    }
+
+    // Keys live in the caller's scope, so a client-chosen key can never replay somebody else's request
+    private static String getIdempotencyKey(String idempotencyKey, String type, String scope, InviteUserRequest request) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return scopedKey(type, scope, idempotencyKey);
+        }
+        return scopedKey(type, scope, request.getEmail().toLowerCase());
+    }
+
+    static String scopedKey(String type, String scope, String key) {
+        return type + ":" + scope + ":" + key;
+    }
+
+    static ProvisioningTask getProvisioningTask(String key, String type, String role, InviteUserRequest request) {
+        ProvisioningTask task = new ProvisioningTask();
+        task.setIdempotencyKey(key);
+        task.setType(type);
+        task.setRole(role);
+        task.setUsername(request.getUsername());
+        task.setEmail(request.getEmail());
+        task.setFirstName(request.getFirstName());
+        task.setLastName(request.getLastName());
+        task.setRequestHash(requestHash(request));
+        return task;
+    }
+
+    // A replay has to carry the same body as the request that created the task
+    private static boolean isSameRequest(ProvisioningTask existing, InviteUserRequest request) {
+        if (existing.getRequestHash() != null) {
+            return existing.getRequestHash().equals(requestHash(request));
+        }
+        boolean sameOrganization = !(request instanceof UserRegistrationRequest registration)
+                || registration.getOrganization().equals(existing.getOrganization());
+        return sameOrganization && existing.getUsername().equals(request.getUsername())
+                && existing.getEmail().equalsIgnoreCase(request.getEmail());
+    }
+
+    static String requestHash(InviteUserRequest request) {
+        String organization = request instanceof UserRegistrationRequest registration ? registration.getOrganization() : null;
+        String canonical = String.join("\n",
+                String.valueOf(request.getUsername()),
+                String.valueOf(request.getEmail()).toLowerCase(),
+                String.valueOf(request.getFirstName()),
+                String.valueOf(request.getLastName()),
+                String.valueOf(organization));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
 
@@ -0,0 +1,225 @@
+package com.zylo.authservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.authservice.config.TenantContext;
+import com.zylo.authservice.dto.BulkImportRowResult;
+import com.zylo.authservice.dto.InviteUserRequest;
+import com.zylo.authservice.entity.ProvisioningTask;
+import com.zylo.authservice.entity.User;
+import com.zylo.authservice.exception.InsufficientInfoException;
+import com.zylo.authservice.repository.AccountsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Streams a CSV or NDJSON upload of invited users into the current tenant.
+ * Rows are inserted in batches together with their provisioning outbox entries; the Keycloak
+ * calls are then carried out by ProvisioningWorker with its bounded worker pool.
+ * One NDJSON result line is written per row, flushed after every batch.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    // Boot's mapper, which already ignores unknown properties
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountsRepository accountsRepository;
+
+    @Autowired
+    private AccountsService accountsService;
+
+    @Value("${zylo.import.batch-size:500}")
+    private int batchSize;
+
+    public void importUsers(InputStream input, String contentType, OutputStream output) throws IOException {
+        UUID tenantId = TenantContext.getTenantId();
+        if (tenantId == null) {
+            throw new InsufficientInfoException("Tenant could not be resolved for import");
+        }
+        boolean csv = contentType != null && contentType.startsWith(CSV);
+        String inviter = AccountsService.getPreferredUsername();
+        String orgName = AccountsService.getOrgName();
+        // Every row joins the same Keycloak group, so look it up once instead of once per user
+        String groupId = null;
+        try {
+            groupId = accountsService.resolveInviteGroup(inviter, orgName);
+        } catch (RuntimeException e) {
+            log.warn("Could not resolve invite group up front, leaving it to the provisioning worker: {}", e.getMessage());
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String[] header = null;
+        long row = 0;
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (csv && header == null) {
+                header = splitCsv(line);
+                continue;
+            }
+            row++;
+            try {
+                InviteUserRequest request = csv ? parseCsv(header, line) : objectMapper.readValue(line, InviteUserRequest.class);
+                validate(request);
+                batch.add(new PendingRow(row, request));
+            } catch (Exception e) {
+                write(output, BulkImportRowResult.builder().row(row).status(BulkImportRowResult.FAILED).message(e.getMessage()).build());
+            }
+            if (batch.size() >= batchSize) {
+                flushBatch(tenantId, inviter, orgName, groupId, batch, output);
+            }
+        }
+        flushBatch(tenantId, inviter, orgName, groupId, batch, output);
+    }
+
+    private void flushBatch(UUID tenantId, String inviter, String orgName, String groupId,
+                            List<PendingRow> batch, OutputStream output) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (PendingRow pending : batch) {
+            usernames.add(pending.request().getUsername().toLowerCase());
+            emails.add(pending.request().getEmail().toLowerCase());
+        }
+        Set<String> taken = accountsRepository.getTakenUsernamesAndEmails(tenantId, usernames, emails);
+
+        List<PendingRow> accepted = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        List<ProvisioningTask> tasks = new ArrayList<>();
+        List<BulkImportRowResult> results = new ArrayList<>();
+        for (PendingRow pending : batch) {
+            InviteUserRequest request = pending.request();
+            String username = request.getUsername().toLowerCase();
+            String email = request.getEmail().toLowerCase();
+            // taken also absorbs duplicates inside the upload itself
+            boolean newUsername = taken.add(username);
+            boolean newEmail = taken.add(email);
+            if (!newUsername || !newEmail) {
+                results.add(BulkImportRowResult.builder().row(pending.row()).status(BulkImportRowResult.SKIPPED)
+                        .username(request.getUsername()).message("User with same username or email already exists in tenant").build());
+                continue;
+            }
+            accepted.add(pending);
+            users.add(AdminService.getUser(request, AdminService.USER, null));
+            ProvisioningTask task = AdminService.getProvisioningTask(
+                    AdminService.scopedKey(ProvisioningTask.INVITED_USER, tenantId + "/" + inviter, email),
+                    ProvisioningTask.INVITED_USER, AccountsService.T_USER, request);
+            task.setInvitedBy(inviter);
+            task.setOrganization(orgName);
+            task.setKeycloakGroupId(groupId);
+            tasks.add(task);
+        }
+
+        if (!users.isEmpty()) {
+            try {
+                accountsRepository.createInvitedUsers(tenantId, users, tasks);
+                for (int i = 0; i < accepted.size(); i++) {
+                    results.add(BulkImportRowResult.builder().row(accepted.get(i).row()).status(BulkImportRowResult.CREATED)
+                            .id(users.get(i).getId()).username(users.get(i).getUsername()).build());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Bulk import batch failed: {}", e.getMessage());
+                for (PendingRow pending : accepted) {
+                    results.add(BulkImportRowResult.builder().row(pending.row()).status(BulkImportRowResult.FAILED)
+                            .username(pending.request().getUsername()).message("Batch insert failed: " + e.getMessage()).build());
+                }
+            }
+        }
+        results.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+        for (BulkImportRowResult result : results) {
+            write(output, result);
+        }
+        output.flush();
+        batch.clear();
+    }
+
+    private void write(OutputStream output, BulkImportRowResult result) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(result));
+        output.write('\n');
+    }
+
+    private static void validate(InviteUserRequest request) {
+        if (request.getUsername() == null || request.getUsername().isBlank()) {
+            throw new InsufficientInfoException("username");
+        }
+        if (request.getEmail() == null || request.getEmail().isBlank()) {
+            throw new InsufficientInfoException("email");
+        }
+    }
+
+    private static InviteUserRequest parseCsv(String[] header, String line) {
+        String[] values = splitCsv(line);
+        InviteUserRequest request = new InviteUserRequest();
+        for (int i = 0; i < header.length && i < values.length; i++) {
+            String value = values[i].isEmpty() ? null : values[i];
+            switch (header[i]) {
+                case "username" -> request.setUsername(value);
+                case "email" -> request.setEmail(value);
+                case "firstName", "first_name" -> request.setFirstName(value);
+                case "lastName", "last_name" -> request.setLastName(value);
+                default -> {
+                }
+            }
+        }
+        return request;
+    }
+
+    // RFC 4180 style: commas inside double quotes are kept, "" is an escaped quote
+    private static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private record PendingRow(long row, InviteUserRequest request) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.zylo.authservice.repository;
+
+import com.zylo.authservice.component.UserBloomFilter;
+import com.zylo.authservice.entity.Tenant;
+import com.zylo.authservice.entity.User;
+import com.zylo.authservice.exception.ResourceConflictException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * A registration that loses the race to a concurrent one only trips the unique constraint on
+ * flush; it must come back as a conflict (409), not as a generic persistence failure.
+ * Existing-user lookups ignore case on both the candidates and the stored rows.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+class AccountsRepositoryTest {
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = User.class)
+    @Import(AccountsRepository.class)
+    static class Config {
+    }
+
+    @Autowired
+    private AccountsRepository accountsRepository;
+
+    @MockitoBean
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @MockitoBean
+    private UserBloomFilter userBloomFilter;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Tenant tenant;
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setName("acme");
+        entityManager.persist(tenant);
+        // The row a concurrent registration committed after this one passed its pre-checks
+        entityManager.persist(user("first"));
+        entityManager.flush();
+    }
+
+    @Test
+    void duplicateEmailOnFlushIsAConflict() {
+        assertThrows(ResourceConflictException.class, () -> accountsRepository.persistUnique(user("second")));
+    }
+
+    @Test
+    void takenUsernamesAndEmailsIgnoreCase() {
+        when(userBloomFilter.mightContain(any(), anyList())).thenAnswer(invocation -> {
+            boolean[] answers = new boolean[invocation.<List<?>>getArgument(1).size()];
+            Arrays.fill(answers, true);
+            return answers;
+        });
+        entityManager.persist(user("MixedCase", "Mixed@Acme.Test"));
+        entityManager.flush();
+
+        Set<String> taken = accountsRepository.getTakenUsernamesAndEmails(tenant.getId(),
+                List.of("FIRST", "mixedcase", "free"), List.of("DUP@acme.test", "mixed@acme.test", "free@acme.test"));
+
+        assertEquals(Set.of("first", "mixedcase", "dup@acme.test", "mixed@acme.test"), taken);
+    }
+
+    private User user(String username) {
+        return user(username, "dup@acme.test");
+    }
+
+    private User user(String username, String email) {
+        User user = new User();
+        user.setTenant(tenant);
+        user.setUsername(username);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,83 @@
+package com.zylo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.chatservice.config.ChatWebSocketHandler.ChatMessageDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChatMessageDTO on the wire: the inbound WebSocket frame parse, the AMQP body produced by
+ * RabbitTemplate's default converter (Java serialization) and the JSON form sent to clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChatMessageCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMessageConverter amqpConverter = new SimpleMessageConverter();
+
+    private ChatMessageDTO message;
+    private String inboundFrame;
+    private byte[] json;
+    private Message amqpMessage;
+
+    @Setup
+    public void setup() throws Exception {
+        amqpConverter.setAllowedListPatterns(List.of("com.zylo.*", "java.*"));
+        message = new ChatMessageDTO();
+        message.setContent("Deploy is done, the dashboards look healthy. Ping me if the p99 moves again.");
+        message.setSenderId("5b7b0a52-1c52-4b6f-8f0c-2f8e4f3f6f11");
+        message.setSenderName("jordan");
+        message.setReceiverId("0d2c6c58-8a7e-4b53-9a5e-7f5d2a1f9c42");
+        message.setTimestamp("2025-10-18T09:15:30.123Z");
+        message.setType("text");
+        inboundFrame = objectMapper.writeValueAsString(Map.of(
+                "content", message.getContent(),
+                "senderId", message.getSenderId(),
+                "senderName", message.getSenderName(),
+                "targetUserId", message.getReceiverId(),
+                "timestamp", message.getTimestamp(),
+                "type", message.getType()));
+        json = objectMapper.writeValueAsBytes(message);
+        amqpMessage = amqpConverter.toMessage(message, new MessageProperties());
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> parseInboundFrame() throws Exception {
+        return objectMapper.readValue(inboundFrame, Map.class);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        return objectMapper.writeValueAsBytes(message);
+    }
+
+    @Benchmark
+    public ChatMessageDTO jsonDecode() throws Exception {
+        return objectMapper.readValue(json, ChatMessageDTO.class);
+    }
+
+    @Benchmark
+    public Message amqpEncode() {
+        return amqpConverter.toMessage(message, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object amqpDecode() {
+        return amqpConverter.fromMessage(amqpMessage);
+    }
+
+    @Benchmark
+    public String outboundText() throws Exception {
+        return new String(objectMapper.writeValueAsBytes(message), StandardCharsets.UTF_8);
+    }
+}
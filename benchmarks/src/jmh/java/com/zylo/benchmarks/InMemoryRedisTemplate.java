@@ -0,0 +1,50 @@
+package com.zylo.benchmarks;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RedisTemplate stand-in backed by a ConcurrentHashMap, so benchmarks measure our code and
+ * not the network. Only the value operations the hot paths use (get/set/delete) are backed.
+ */
+@SuppressWarnings("unchecked")
+class InMemoryRedisTemplate<K, V> extends RedisTemplate<K, V> {
+
+    private final Map<K, V> values = new ConcurrentHashMap<>();
+
+    private final ValueOperations<K, V> valueOperations = (ValueOperations<K, V>) Proxy.newProxyInstance(
+            ValueOperations.class.getClassLoader(),
+            new Class<?>[]{ValueOperations.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "get" -> values.get((K) args[0]);
+                case "set" -> {
+                    values.put((K) args[0], (V) args[1]);
+                    yield null;
+                }
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+
+    @Override
+    public ValueOperations<K, V> opsForValue() {
+        return valueOperations;
+    }
+
+    @Override
+    public Boolean delete(K key) {
+        return values.remove(key) != null;
+    }
+
+    @Override
+    public Boolean hasKey(K key) {
+        return values.containsKey(key);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // no connection factory to check
+    }
+}
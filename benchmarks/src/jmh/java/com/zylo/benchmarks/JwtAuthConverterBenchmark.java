@@ -0,0 +1,61 @@
+package com.zylo.benchmarks;
+
+import com.zylo.authservice.config.JwtAuthConverter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authority extraction for a Keycloak access token. "cached" is the steady state for a
+ * client reusing its token; "uncached" uses a token without exp, which is never cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtAuthConverterBenchmark {
+
+    private JwtAuthConverter converter;
+    private Jwt cachedToken;
+    private Jwt uncachedToken;
+
+    @Setup
+    public void setup() {
+        converter = new JwtAuthConverter(50_000);
+        Instant now = Instant.now();
+        cachedToken = token("cached-token-value", now, now.plusSeconds(3600));
+        uncachedToken = token("uncached-token-value", now, null);
+        converter.convert(cachedToken);
+    }
+
+    private static Jwt token(String value, Instant issuedAt, Instant expiresAt) {
+        Jwt.Builder builder = Jwt.withTokenValue(value)
+                .header("alg", "RS256")
+                .subject("5b7b0a52-1c52-4b6f-8f0c-2f8e4f3f6f11")
+                .issuer("http://localhost:8080/realms/zylo")
+                .issuedAt(issuedAt)
+                .claim("scope", "openid profile email")
+                .claim("preferred_username", "jordan")
+                .claim("groups", List.of("/acme"))
+                .claim("realm_access", Map.of("roles", List.of("offline_access", "uma_authorization", "default-roles-zylo")))
+                .claim("resource_access", Map.of("zylo-web", Map.of("roles", List.of("tenant_user"))));
+        if (expiresAt != null) {
+            builder.expiresAt(expiresAt);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken cached() {
+        return converter.convert(cachedToken);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken uncached() {
+        return converter.convert(uncachedToken);
+    }
+}
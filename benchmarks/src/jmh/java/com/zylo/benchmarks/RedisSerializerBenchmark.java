@@ -0,0 +1,63 @@
+package com.zylo.benchmarks;
+
+import com.zylo.chatservice.config.ChatWebSocketHandler.ChatMessageDTO;
+import com.zylo.chatservice.config.RedisChatConfig;
+import com.zylo.common.config.CompactRedisSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Round trips through both value serializers RedisConfig can select (zylo.redis.value-serializer)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RedisSerializerBenchmark {
+
+    @Param({"compact", "jdk"})
+    private String format;
+
+    private RedisSerializer<Object> serializer;
+    private ChatMessageDTO message;
+    private String serverId;
+    private UUID tenantId;
+
+    @Setup
+    public void setup() {
+        CompactRedisSerializer compact = new CompactRedisSerializer();
+        compact.registerType(RedisChatConfig.CHAT_MESSAGE_TYPE_ID, ChatMessageDTO.class);
+        serializer = "jdk".equals(format) ? new JdkSerializationRedisSerializer() : compact;
+
+        message = new ChatMessageDTO();
+        message.setContent("Deploy is done, the dashboards look healthy. Ping me if the p99 moves again.");
+        message.setSenderId("5b7b0a52-1c52-4b6f-8f0c-2f8e4f3f6f11");
+        message.setSenderName("jordan");
+        message.setReceiverId("0d2c6c58-8a7e-4b53-9a5e-7f5d2a1f9c42");
+        message.setTimestamp("2025-10-18T09:15:30.123Z");
+        message.setType("text");
+        serverId = "chat-node-" + UUID.randomUUID();
+        tenantId = UUID.randomUUID();
+    }
+
+    @Benchmark
+    public Object chatMessageRoundTrip() {
+        return serializer.deserialize(serializer.serialize(message));
+    }
+
+    @Benchmark
+    public Object serverIdRoundTrip() {
+        return serializer.deserialize(serializer.serialize(serverId));
+    }
+
+    @Benchmark
+    public Object uuidRoundTrip() {
+        return serializer.deserialize(serializer.serialize(tenantId));
+    }
+
+    @Benchmark
+    public byte[] chatMessageEncode() {
+        return serializer.serialize(message);
+    }
+}
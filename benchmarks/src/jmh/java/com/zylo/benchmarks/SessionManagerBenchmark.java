@@ -0,0 +1,63 @@
+package com.zylo.benchmarks;
+
+import com.zylo.chatservice.websocket.SessionManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+// Registry lookups done for every routed message, with Redis replaced by an in-memory map
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionManagerBenchmark {
+
+    @Param({"1000", "100000"})
+    private int users;
+
+    private SessionManager sessionManager;
+    private String[] userIds;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setup() {
+        sessionManager = new SessionManager();
+        ReflectionTestUtils.setField(sessionManager, "redisTemplate", new InMemoryRedisTemplate<String, Object>());
+        ReflectionTestUtils.setField(sessionManager, "serverId", "bench-node-1");
+        // lookups never touch the session itself
+        WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[]{WebSocketSession.class}, (proxy, method, args) -> null);
+        userIds = new String[users];
+        for (int i = 0; i < users; i++) {
+            userIds[i] = "user-" + i;
+            sessionManager.addSession(userIds[i], session);
+        }
+    }
+
+    private String nextUser(Cursor cursor) {
+        String userId = userIds[cursor.next];
+        cursor.next = cursor.next + 1 == userIds.length ? 0 : cursor.next + 1;
+        return userId;
+    }
+
+    @Benchmark
+    public Object getLocalSession(Cursor cursor) {
+        return sessionManager.getSession(nextUser(cursor));
+    }
+
+    @Benchmark
+    public String getSessionServerId(Cursor cursor) {
+        return sessionManager.getSessionServerId(nextUser(cursor));
+    }
+
+    @Benchmark
+    public boolean isUserOnThisServer(Cursor cursor) {
+        return sessionManager.isUserOnThisServer(nextUser(cursor));
+    }
+}
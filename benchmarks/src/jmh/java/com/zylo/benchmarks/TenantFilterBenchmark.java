@@ -0,0 +1,106 @@
+package com.zylo.benchmarks;
+
+import com.zylo.authservice.component.TenantResolver;
+import com.zylo.authservice.config.TenantFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.FilterChain;
+import org.hibernate.Filter;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request tenant resolution through TenantFilter: once with the tenant id claim on the
+ * token, once through the group name and the resolver's local cache. Redis sits behind an
+ * in-memory map and the Hibernate session is a no-op proxy, so only our code is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TenantFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private TenantFilter tenantFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private JwtAuthenticationToken claimAuthentication;
+    private JwtAuthenticationToken groupAuthentication;
+
+    @Setup
+    public void setup() {
+        UUID tenantId = UUID.randomUUID();
+        InMemoryRedisTemplate<String, String> redisTemplate = new InMemoryRedisTemplate<>();
+        redisTemplate.opsForValue().set("tenant:acme", tenantId.toString());
+
+        TenantResolver tenantResolver = new TenantResolver();
+        ReflectionTestUtils.setField(tenantResolver, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(tenantResolver, "tenantClaim", "tenant_id");
+        ReflectionTestUtils.setField(tenantResolver, "maxSize", 10_000);
+        ReflectionTestUtils.setField(tenantResolver, "ttlSeconds", 300L);
+
+        tenantFilter = new TenantFilter();
+        ReflectionTestUtils.setField(tenantFilter, "tenantResolver", tenantResolver);
+        ReflectionTestUtils.setField(tenantFilter, "entityManager", entityManager());
+
+        claimAuthentication = new JwtAuthenticationToken(jwt().claim("tenant_id", tenantId.toString()).build());
+        groupAuthentication = new JwtAuthenticationToken(jwt().build());
+        request = new MockHttpServletRequest("GET", "/api/v1/users");
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static Jwt.Builder jwt() {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("5b7b0a52-1c52-4b6f-8f0c-2f8e4f3f6f11")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .claim("groups", List.of("/acme"));
+    }
+
+    private static EntityManager entityManager() {
+        Filter filter = proxy(Filter.class, null);
+        Session session = proxy(Session.class, filter);
+        return proxy(EntityManager.class, session);
+    }
+
+    // Returns 'result' or the proxy itself where the types fit, null otherwise; enough for enable/setParameter/disable
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object result) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getReturnType().isInstance(result)) {
+                return result;
+            }
+            return method.getReturnType().isAssignableFrom(type) ? proxy : null;
+        });
+    }
+
+    @Benchmark
+    public void tenantIdClaim() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(claimAuthentication);
+        tenantFilter.doFilter(request, response, NO_OP_CHAIN);
+    }
+
+    @Benchmark
+    public void groupNameCached() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(groupAuthentication);
+        tenantFilter.doFilter(request, response, NO_OP_CHAIN);
+    }
+}
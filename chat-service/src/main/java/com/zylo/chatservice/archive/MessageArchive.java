@@ -0,0 +1,100 @@
+package com.zylo.chatservice.archive;
+
+import com.zylo.chatservice.dto.MessageView;
+import com.zylo.chatservice.repository.MessageArchiveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * File-system cold tier for message history. Segments live under
+ * {@code <dir>/<tenantId>/<channelId>/<firstMillis>-<lastMillis>.seg}; the path is a pure
+ * function of the content range, so a retried archive run overwrites rather than duplicates.
+ * Any node may serve history reads, so dir must be a volume mounted on every chat node.
+ */
+@Component
+public class MessageArchive {
+
+    @Autowired
+    private MessageArchiveRepository messageArchiveRepository;
+
+    private final Path root;
+    private final int blockSize;
+    private final Map<String, MessageSegmentReader> readers;
+
+    public MessageArchive(@Value("${zylo.messages.archive.dir:./data/message-archive}") String dir,
+                          @Value("${zylo.messages.archive.block-size:256}") int blockSize,
+                          @Value("${zylo.messages.archive.open-segments:256}") int openSegments) {
+        this.root = Paths.get(dir).toAbsolutePath();
+        this.blockSize = blockSize;
+        // LRU of mapped segments; dropped mappings are released by the GC
+        this.readers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MessageSegmentReader> eldest) {
+                return size() > openSegments;
+            }
+        };
+    }
+
+    // Returns the path relative to the archive root, as stored in message_archive_segments
+    public String writeSegment(UUID tenantId, UUID channelId, List<MessageView> messages) throws IOException {
+        String relative = tenantId + "/" + channelId + "/"
+                + MessageSegmentFormat.toMillis(messages.get(0).createdAt()) + "-"
+                + MessageSegmentFormat.toMillis(messages.get(messages.size() - 1).createdAt()) + ".seg";
+        MessageSegmentWriter.write(root.resolve(relative), messages, blockSize);
+        synchronized (readers) {
+            readers.remove(relative);
+        }
+        return relative;
+    }
+
+    public long size(String relativePath) throws IOException {
+        return Files.size(root.resolve(relativePath));
+    }
+
+    // Page order of both tiers: createdAt, then id as Postgres sorts uuids, newest first
+    public static final Comparator<MessageView> NEWEST_FIRST = Comparator.comparing(MessageView::createdAt)
+            .thenComparing(MessageView::id, MessageSegmentFormat::compareIds)
+            .reversed();
+
+    // Newest first, strictly before the (before, beforeId) cursor (null means from the newest archived message)
+    public List<MessageView> read(UUID tenantId, UUID channelId, LocalDateTime before, UUID beforeId, int limit) {
+        long beforeMillis = before == null ? Long.MAX_VALUE : MessageSegmentFormat.toMillis(before);
+        List<MessageView> result = new ArrayList<>();
+        for (MessageArchiveRepository.SegmentRef segment : messageArchiveRepository.getSegments(tenantId, channelId, before)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            try {
+                result.addAll(reader(segment.path(), channelId).readBefore(beforeMillis, beforeId, limit - result.size()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archive segment " + segment.path(), e);
+            }
+        }
+        return result;
+    }
+
+    private MessageSegmentReader reader(String relativePath, UUID channelId) throws IOException {
+        synchronized (readers) {
+            MessageSegmentReader reader = readers.get(relativePath);
+            if (reader == null) {
+                reader = new MessageSegmentReader(root.resolve(relativePath), channelId);
+                readers.put(relativePath, reader);
+            }
+            return reader;
+        }
+    }
+}
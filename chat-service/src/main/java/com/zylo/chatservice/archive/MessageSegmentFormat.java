@@ -0,0 +1,105 @@
+package com.zylo.chatservice.archive;
+
+import com.zylo.chatservice.dto.MessageView;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * On-disk layout of an archived message segment (one channel, ascending created_at):
+ * <pre>
+ * "ZSG1"
+ * block*          deflate-compressed run of records
+ * index entry*    firstMillis, lastMillis (long), offset (long), compressedLength, recordCount (int)
+ * footer          indexOffset (long), blockCount (int), "ZSG1"
+ * </pre>
+ * The index is sparse (one entry per block), so a read seeks straight to the blocks
+ * that can hold messages before a cursor and only inflates those.
+ */
+final class MessageSegmentFormat {
+
+    static final int MAGIC = 0x5A534731; // "ZSG1"
+    static final int HEADER_SIZE = 4;
+    static final int INDEX_ENTRY_SIZE = 8 + 8 + 8 + 4 + 4;
+    static final int FOOTER_SIZE = 8 + 4 + 4;
+
+    private MessageSegmentFormat() {
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // Unsigned, byte by byte: the order Postgres sorts uuid columns in
+    static int compareIds(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    static void writeRecord(DataOutputStream out, MessageView message) throws IOException {
+        writeUuid(out, message.id());
+        writeUuid(out, message.threadId());
+        writeUuid(out, message.parentId());
+        writeUuid(out, message.userId());
+        writeString(out, message.username());
+        writeString(out, message.content());
+        writeString(out, message.type());
+        out.writeLong(toMillis(message.createdAt()));
+        out.writeLong(message.editedAt() == null ? Long.MIN_VALUE : toMillis(message.editedAt()));
+    }
+
+    static MessageView readRecord(DataInputStream in, UUID channelId) throws IOException {
+        UUID id = readUuid(in);
+        UUID threadId = readUuid(in);
+        UUID parentId = readUuid(in);
+        UUID userId = readUuid(in);
+        String username = readString(in);
+        String content = readString(in);
+        String type = readString(in);
+        LocalDateTime createdAt = fromMillis(in.readLong());
+        long editedMillis = in.readLong();
+        LocalDateTime editedAt = editedMillis == Long.MIN_VALUE ? null : fromMillis(editedMillis);
+        return new MessageView(id, channelId, threadId, parentId, userId, username, content, type, createdAt, editedAt);
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeBoolean(uuid != null);
+        if (uuid != null) {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
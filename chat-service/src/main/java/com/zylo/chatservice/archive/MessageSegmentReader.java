@@ -0,0 +1,133 @@
+package com.zylo.chatservice.archive;
+
+import com.zylo.chatservice.dto.MessageView;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Memory-mapped view of one segment. Segments are immutable, so a reader is safe to share
+ * between threads; every read works on its own duplicate of the mapped buffer.
+ */
+final class MessageSegmentReader {
+
+    private final MappedByteBuffer buffer;
+    private final UUID channelId;
+    private final long[] firstMillis;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    MessageSegmentReader(Path path, UUID channelId) throws IOException {
+        this.channelId = channelId;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer view = buffer.duplicate();
+        if (view.getInt(0) != MessageSegmentFormat.MAGIC
+                || view.getInt(view.limit() - 4) != MessageSegmentFormat.MAGIC) {
+            throw new IOException("Not a message segment: " + path);
+        }
+        int footer = view.limit() - MessageSegmentFormat.FOOTER_SIZE;
+        long indexOffset = view.getLong(footer);
+        int blockCount = view.getInt(footer + 8);
+        firstMillis = new long[blockCount];
+        offsets = new long[blockCount];
+        lengths = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            int entry = (int) indexOffset + i * MessageSegmentFormat.INDEX_ENTRY_SIZE;
+            firstMillis[i] = view.getLong(entry);
+            offsets[i] = view.getLong(entry + 16);
+            lengths[i] = view.getInt(entry + 24);
+        }
+    }
+
+    // Newest first, strictly before the (beforeMillis, beforeId) cursor; a null beforeId excludes the whole millisecond
+    List<MessageView> readBefore(long beforeMillis, UUID beforeId, int limit) throws IOException {
+        List<MessageView> result = new ArrayList<>(limit);
+        // a block starting on the cursor's millisecond may still hold ties with smaller ids
+        int block = lastBlockStartingBefore(beforeId == null ? beforeMillis : beforeMillis + 1);
+        for (; block >= 0 && result.size() < limit; block--) {
+            List<MessageView> records = readBlock(block);
+            for (int i = records.size() - 1; i >= 0 && result.size() < limit; i--) {
+                MessageView message = records.get(i);
+                long millis = MessageSegmentFormat.toMillis(message.createdAt());
+                if (millis < beforeMillis || (millis == beforeMillis && beforeId != null
+                        && MessageSegmentFormat.compareIds(message.id(), beforeId) < 0)) {
+                    result.add(message);
+                }
+            }
+        }
+        return result;
+    }
+
+    private int lastBlockStartingBefore(long beforeMillis) {
+        int low = 0;
+        int high = firstMillis.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (firstMillis[mid] < beforeMillis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private List<MessageView> readBlock(int block) throws IOException {
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) offsets[block]).limit((int) offsets[block] + lengths[block]);
+        List<MessageView> records = new ArrayList<>();
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteBufferInputStream(slice.slice()), inflater))) {
+            while (true) {
+                try {
+                    records.add(MessageSegmentFormat.readRecord(in, channelId));
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        return records;
+    }
+
+    // Reads straight from the mapping, no copy of the compressed block onto the heap
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer source;
+
+        ByteBufferInputStream(ByteBuffer source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() {
+            return source.hasRemaining() ? source.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, source.remaining());
+            source.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
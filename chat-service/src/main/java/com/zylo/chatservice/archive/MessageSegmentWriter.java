@@ -0,0 +1,76 @@
+package com.zylo.chatservice.archive;
+
+import com.zylo.chatservice.dto.MessageView;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes one immutable segment file. The file is built under a temporary name, fsynced and
+ * then atomically renamed, so readers never observe a partial segment.
+ */
+final class MessageSegmentWriter {
+
+    private MessageSegmentWriter() {
+    }
+
+    // messages must belong to one channel and be sorted by created_at ascending
+    static void write(Path target, List<MessageView> messages, int blockSize) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        List<long[]> index = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MessageSegmentFormat.MAGIC);
+            long offset = MessageSegmentFormat.HEADER_SIZE;
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try {
+                for (int start = 0; start < messages.size(); start += blockSize) {
+                    List<MessageView> block = messages.subList(start, Math.min(start + blockSize, messages.size()));
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    deflater.reset();
+                    try (DataOutputStream blockOut = new DataOutputStream(new DeflaterOutputStream(compressed, deflater))) {
+                        for (MessageView message : block) {
+                            MessageSegmentFormat.writeRecord(blockOut, message);
+                        }
+                    }
+                    compressed.writeTo(out);
+                    index.add(new long[]{
+                            MessageSegmentFormat.toMillis(block.get(0).createdAt()),
+                            MessageSegmentFormat.toMillis(block.get(block.size() - 1).createdAt()),
+                            offset,
+                            compressed.size(),
+                            block.size()});
+                    offset += compressed.size();
+                }
+            } finally {
+                deflater.end();
+            }
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeLong(entry[2]);
+                out.writeInt((int) entry[3]);
+                out.writeInt((int) entry[4]);
+            }
+            out.writeLong(offset);
+            out.writeInt(index.size());
+            out.writeInt(MessageSegmentFormat.MAGIC);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
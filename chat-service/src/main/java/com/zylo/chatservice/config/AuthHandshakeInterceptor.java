@@ -1,5 +1,8 @@
 package com.zylo.chatservice.config;
 
+import com.zylo.authservice.component.TenantResolver;
+import com.zylo.authservice.component.UserIdentityResolver;
+import com.zylo.chatservice.websocket.NodeDrainer;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
@@ -13,14 +16,22 @@ import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
 
 import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class AuthHandshakeInterceptor implements HandshakeInterceptor {
 
     private final JwtDecoder jwtDecoder;
+    private final TenantResolver tenantResolver;
+    private final UserIdentityResolver userIdentityResolver;
+    private final NodeDrainer nodeDrainer;
 
-    public AuthHandshakeInterceptor(JwtDecoder jwtDecoder) {
+    public AuthHandshakeInterceptor(JwtDecoder jwtDecoder, TenantResolver tenantResolver,
+                                    UserIdentityResolver userIdentityResolver, NodeDrainer nodeDrainer) {
         this.jwtDecoder = jwtDecoder;
+        this.tenantResolver = tenantResolver;
+        this.userIdentityResolver = userIdentityResolver;
+        this.nodeDrainer = nodeDrainer;
     }
 
     @Override
@@ -30,6 +41,12 @@ public class AuthHandshakeInterceptor implements HandshakeInterceptor {
             WebSocketHandler wsHandler,
             Map<String, Object> attributes) {
 
+        // Shutting down: send the client to another node
+        if (nodeDrainer.isDraining()) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return false;
+        }
+
         String token = null;
 
         // Try to get from query param
@@ -38,17 +55,33 @@ public class AuthHandshakeInterceptor implements HandshakeInterceptor {
             token = httpRequest.getParameter("token");
         }
 
-        if (token == null || token.isBlank()) {
+        if (!authenticate(token, attributes)) {
             response.setStatusCode(HttpStatus.UNAUTHORIZED);
             return false;
         }
+        return true;
+    }
 
+    // Fills the session attributes from the token; shared with the reactive gateway's handshake
+    public boolean authenticate(String token, Map<String, Object> attributes) {
+        if (token == null || token.isBlank()) {
+            return false;
+        }
         try {
             Jwt jwt = jwtDecoder.decode(token);
             attributes.put("userId", jwt.getClaim("sub")); // store in WS session
+            // Resolved once per connection; tags metrics and is stamped on every message from this session
+            UUID tenantId = tenantResolver.resolve(jwt);
+            if (tenantId != null) {
+                attributes.put("tenantId", tenantId.toString());
+            }
+            // users.id, which membership rows reference; absent until provisioning has linked the account
+            UUID localUserId = userIdentityResolver.resolve(jwt);
+            if (localUserId != null) {
+                attributes.put("localUserId", localUserId.toString());
+            }
             return true;
         } catch (JwtException e) {
-            response.setStatusCode(HttpStatus.UNAUTHORIZED);
             return false;
         }
     }
@@ -1,18 +1,28 @@
 package com.zylo.chatservice.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.chatservice.metrics.ChatMetrics;
+import com.zylo.chatservice.sequence.ConversationSequencer;
+import com.zylo.chatservice.sync.ConversationLog;
+import com.zylo.chatservice.tracing.ChatTracing;
 import com.zylo.chatservice.websocket.SessionManager;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
+import java.util.Date;
 
 @Component
 public class ChatMessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageListener.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -20,25 +30,79 @@ public class ChatMessageListener {
     private SessionManager sessionManager;
 
     @Autowired
-    private String serverId;
-
-    @RabbitListener(queues = "chat.queue")
-    public void handleMessage(ChatWebSocketHandler.ChatMessageDTO message) throws IOException {
-        System.out.println("Received message from " + message.getSenderId() + " to " + message.getReceiverId());
-        
-        if (sessionManager.isUserOnThisServer(message.getReceiverId())) {
-            WebSocketSession session = sessionManager.getSession(message.getReceiverId());
-            if (session != null && session.isOpen()) {
-                // Send the message to the WebSocket client
-                session.sendMessage(new TextMessage(new ObjectMapper().writeValueAsString(message)));
-                System.out.println("Message delivered to user " + message.getReceiverId() + " on this server");
+    private MessageDelivery messageDelivery;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    @Autowired
+    private ChatTracing chatTracing;
+
+    @Autowired
+    private ConversationSequencer conversationSequencer;
+
+    @Autowired
+    private ConversationLog conversationLog;
+
+    // Shard queues are wired in ChatShardListenerConfig; this annotation only drains the legacy queue.
+    // publishedAt is the AMQP timestamp property stamped by ChatWebSocketHandler
+    @RabbitListener(queues = RabbitMQConfig.CHAT_QUEUE)
+    public void handleMessage(ChatWebSocketHandler.ChatMessageDTO message,
+                              @Header(name = AmqpHeaders.TIMESTAMP, required = false) Date publishedAt) {
+        String tenantId = message.getTenantId();
+        if (publishedAt != null) {
+            chatMetrics.recordQueueDwell(tenantId, System.currentTimeMillis() - publishedAt.getTime());
+        }
+
+        // Runs inside the listener container's receive span, continued from the AMQP headers
+        Span span = chatTracing.start("chat.route", tenantId);
+        try (Tracer.SpanInScope ignored = chatTracing.withSpan(span)) {
+            sequenceAndLog(message);
+            long lookupStart = System.nanoTime();
+            boolean local = sessionManager.isUserOnThisServer(message.getReceiverId());
+            chatMetrics.recordRouteLookup(tenantId, System.nanoTime() - lookupStart);
+            span.tag("path", local ? ChatMetrics.LOCAL : ChatMetrics.REDIS);
+
+            if (local) {
+                messageDelivery.deliver(message, ChatMetrics.LOCAL);
             } else {
-                System.out.println("Session not found or closed for user " + message.getReceiverId());
+                forward(message);
             }
-        } else {
-            // User is on a different server, forward via Redis
+        } finally {
+            span.end();
+        }
+    }
+
+    // Sequenced here rather than at ingress: both sides of a conversation funnel through one shard consumer
+    private void sequenceAndLog(ChatWebSocketHandler.ChatMessageDTO message) {
+        if (message.getConversationId() == null || message.getSeq() > 0) {
+            return;
+        }
+        try {
+            message.setSeq(conversationSequencer.next(message.getConversationId()));
+        } catch (Exception e) {
+            // Still delivered, clients treat seq 0 as unordered
+            log.warn("Could not sequence message in {}: {}", message.getConversationId(), e.getMessage());
+            return;
+        }
+        // Logged before delivery, so a client syncing from this seq never misses it
+        try {
+            conversationLog.append(message);
+        } catch (Exception e) {
+            log.warn("Could not log message {} in {}: {}", message.getSeq(), message.getConversationId(), e.getMessage());
+        }
+    }
+
+    // User is on a different server, forward via Redis with the trace context in the payload
+    private void forward(ChatWebSocketHandler.ChatMessageDTO message) {
+        Span span = chatTracing.start("chat.forward", message.getTenantId());
+        try (Tracer.SpanInScope ignored = chatTracing.withSpan(span)) {
+            message.setTraceParent(ChatTracing.traceParent(span));
             redisTemplate.convertAndSend("chat_channel", message);
-            System.out.println("Message forwarded to Redis for user " + message.getReceiverId());
+            chatMetrics.recordForwarded(message.getTenantId());
+            log.debug("Forwarded message for user {} through Redis", message.getReceiverId());
+        } finally {
+            span.end();
         }
     }
 }
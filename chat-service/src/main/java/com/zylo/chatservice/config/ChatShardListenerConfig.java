@@ -0,0 +1,49 @@
+package com.zylo.chatservice.config;
+
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.rabbit.listener.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One listener container per chat shard, with a single consumer each. Every node subscribes to
+ * every shard; the consumer priority is a rendezvous hash of (node, shard), so where the broker
+ * honours priorities for single-active-consumer queues, shards spread across nodes and a shard
+ * whose node leaves moves to the next highest bidder. Otherwise the first subscriber keeps it.
+ */
+@Configuration
+public class ChatShardListenerConfig implements RabbitListenerConfigurer {
+
+    @Autowired
+    private ChatShards chatShards;
+
+    @Autowired
+    private ChatMessageListener chatMessageListener;
+
+    @Autowired
+    private RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    private String serverId;
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        MessageConverter converter = rabbitTemplate.getMessageConverter();
+        MessageListener listener = message -> chatMessageListener.handleMessage(
+                (ChatWebSocketHandler.ChatMessageDTO) converter.fromMessage(message),
+                message.getMessageProperties().getTimestamp());
+        for (int shard = 0; shard < chatShards.getCount(); shard++) {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("chat-shard-" + shard);
+            endpoint.setQueueNames(ChatShards.queueName(shard));
+            endpoint.setConcurrency("1");
+            endpoint.setPriority(Math.floorMod((serverId + ":" + shard).hashCode(), 1000));
+            endpoint.setMessageListener(listener);
+            registrar.registerEndpoint(endpoint);
+        }
+    }
+}
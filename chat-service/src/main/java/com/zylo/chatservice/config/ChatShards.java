@@ -0,0 +1,36 @@
+package com.zylo.chatservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conversation to shard mapping for the chat queues. Every message of a conversation is routed to
+ * chat.queue.&lt;shard&gt;, and each shard queue has a single active consumer, so a conversation is
+ * processed in order by one node while different conversations spread over all shards.
+ * The shard count has to be the same on every node.
+ */
+@Component
+public class ChatShards {
+
+    public static final String QUEUE_PREFIX = "chat.queue.";
+    public static final String ROUTING_KEY_PREFIX = "chat.message.";
+
+    @Value("${zylo.chat.shards.count:16}")
+    private int count;
+
+    public int getCount() {
+        return count;
+    }
+
+    public int shardOf(String conversationId) {
+        return conversationId != null ? Math.floorMod(conversationId.hashCode(), count) : 0;
+    }
+
+    public String routingKey(String conversationId) {
+        return ROUTING_KEY_PREFIX + shardOf(conversationId);
+    }
+
+    public static String queueName(int shard) {
+        return QUEUE_PREFIX + shard;
+    }
+}
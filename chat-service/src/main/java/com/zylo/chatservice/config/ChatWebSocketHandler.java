@@ -2,83 +2,339 @@ package com.zylo.chatservice.config;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.chatservice.dto.SyncDelta;
+import com.zylo.chatservice.metrics.ChatMetrics;
+import com.zylo.chatservice.ratelimit.ChatRateLimiter;
+import com.zylo.chatservice.ratelimit.RateLimitAction;
+import com.zylo.chatservice.repository.ChatReadRepository;
+import com.zylo.chatservice.sequence.ConversationSequencer;
+import com.zylo.chatservice.sync.ConversationLog;
+import com.zylo.chatservice.sync.SyncService;
+import com.zylo.chatservice.tracing.ChatTracing;
+import com.zylo.chatservice.websocket.ReceiptAggregator;
+import com.zylo.chatservice.websocket.SendDeduplicator;
 import com.zylo.chatservice.websocket.SessionManager;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class ChatWebSocketHandler extends TextWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatWebSocketHandler.class);
+
+    private static final String GRANTED_CHANNELS = "grantedChannels";
+
+    // Read back by ChatMessageListener as the start of queue dwell
+    private static final MessagePostProcessor STAMP_PUBLISH_TIME = amqpMessage -> {
+        amqpMessage.getMessageProperties().setTimestamp(new Date());
+        return amqpMessage;
+    };
+
     private final RabbitTemplate rabbitTemplate;
     private final SessionManager sessionManager;
+    private final ChatMetrics chatMetrics;
+    private final ChatTracing chatTracing;
+    private final ChatRateLimiter rateLimiter;
+    private final SendDeduplicator sendDeduplicator;
+    private final ReceiptAggregator receiptAggregator;
+    private final SyncService syncService;
+    private final ChatShards chatShards;
+    private final ChatReadRepository chatReadRepository;
+    private final ConversationLog conversationLog;
+    private final ObjectMapper mapper = new ObjectMapper();
 
-    public ChatWebSocketHandler(RabbitTemplate rabbitTemplate, SessionManager sessionManager) {
+    @Value("${zylo.chat.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${zylo.chat.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimitBytes;
+
+    public ChatWebSocketHandler(RabbitTemplate rabbitTemplate, SessionManager sessionManager, ChatMetrics chatMetrics,
+                                ChatTracing chatTracing, ChatRateLimiter rateLimiter, SendDeduplicator sendDeduplicator,
+                                ReceiptAggregator receiptAggregator, SyncService syncService,
+                                ChatShards chatShards, ChatReadRepository chatReadRepository,
+                                ConversationLog conversationLog) {
         this.rabbitTemplate = rabbitTemplate;
         this.sessionManager = sessionManager;
+        this.chatMetrics = chatMetrics;
+        this.chatTracing = chatTracing;
+        this.rateLimiter = rateLimiter;
+        this.sendDeduplicator = sendDeduplicator;
+        this.receiptAggregator = receiptAggregator;
+        this.syncService = syncService;
+        this.chatShards = chatShards;
+        this.chatReadRepository = chatReadRepository;
+        this.conversationLog = conversationLog;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String userId = (String) session.getAttributes().get("userId");
-        System.out.println("User connected: " + userId);
-        
-        // Register session in SessionManager
+        log.debug("User connected: {}", userId);
+
+        // Register session in SessionManager; deliveries and error frames come from other threads,
+        // so all writes go through a decorator that serializes them and bounds a slow reader
         if (userId != null) {
-            sessionManager.addSession(userId, session);
+            sessionManager.addSession(userId, new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferLimitBytes));
+            chatMetrics.sessionOpened((String) session.getAttributes().get("tenantId"));
         }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         String userId = (String) session.getAttributes().get("userId");
-        System.out.println("User disconnected: " + userId);
-        
+        log.debug("User disconnected: {}", userId);
+
         // Remove session from SessionManager
         if (userId != null) {
             sessionManager.removeSession(userId);
+            sendDeduplicator.senderDisconnected(userId);
+            chatMetrics.sessionClosed((String) session.getAttributes().get("tenantId"));
         }
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws JsonProcessingException {
+        long start = System.nanoTime();
         String userId = (String) session.getAttributes().get("userId");
-        
-        try {
+        String tenantId = (String) session.getAttributes().get("tenantId");
+
+        ChatRateLimiter.Decision decision = rateLimiter.acquire(userId, tenantId);
+        if (!admit(session, userId, tenantId, decision)) {
+            return;
+        }
+
+        Span span = chatTracing.start("chat.ingress", tenantId);
+        try (Tracer.SpanInScope ignored = chatTracing.withSpan(span)) {
             // Parse the simple message format from frontend
-            ObjectMapper mapper = new ObjectMapper();
             Map<String, Object> messageData = mapper.readValue(message.getPayload(), Map.class);
-            
+
+            // Reconnect: {"type":"sync","cursors":{conversationId: lastSeq}} -> one frame of deltas
+            if ("sync".equals(messageData.get("type"))) {
+                Map<String, Long> cursors = new LinkedHashMap<>();
+                if (messageData.get("cursors") instanceof Map<?, ?> requested) {
+                    requested.forEach((id, seq) -> cursors.put(id.toString(), seq instanceof Number n ? n.longValue() : 0L));
+                }
+                List<SyncDelta> deltas = userId != null ? syncService.sync(userId, localUserId(session), cursors) : List.of();
+                sendControlFrame(session, userId, mapper.writeValueAsString(Map.of("type", "sync", "conversations", deltas)));
+                return;
+            }
+
+            String clientMessageId = (String) messageData.get("clientMessageId");
+            if (!mayUseChannel(session, messageData.get("channelId"))) {
+                sendControlFrame(session, userId, error("forbidden", clientMessageId));
+                return;
+            }
+
+            // Read report: everything from senderId up to seq upTo has been shown to this user
+            if ("read".equals(messageData.get("type"))) {
+                String senderId = (String) messageData.get("senderId");
+                receiptAggregator.read(conversationId(messageData, senderId, userId), senderId, userId, tenantId,
+                        messageData.get("upTo") instanceof Number upTo ? upTo.longValue() : 0, clientMessageId);
+                return;
+            }
+
             // Create a simplified message object for RabbitMQ
             ChatMessageDTO chatMessage = new ChatMessageDTO();
             chatMessage.setContent((String) messageData.get("content"));
-            chatMessage.setSenderId((String) messageData.get("senderId"));
+            // From the handshake, never from the client
+            chatMessage.setSenderId(userId);
             chatMessage.setSenderName((String) messageData.get("senderName"));
             chatMessage.setReceiverId((String) messageData.get("targetUserId"));
             chatMessage.setTimestamp((String) messageData.get("timestamp"));
             chatMessage.setType((String) messageData.getOrDefault("type", "text"));
-            
-            // Send to RabbitMQ for processing
-            rabbitTemplate.convertAndSend(RabbitMQConfig.CHAT_EXCHANGE, RabbitMQConfig.CHAT_ROUTING_KEY, chatMessage);
-            
+            // edit, delete, reaction and unreaction frames point at the message they change
+            if (messageData.get("targetSeq") instanceof Number targetSeq) {
+                chatMessage.setTargetSeq(targetSeq.longValue());
+            }
+            chatMessage.setConversationId(conversationId(messageData, chatMessage.getSenderId(), chatMessage.getReceiverId()));
+            chatMessage.setTenantId(tenantId);
+            if ((SyncService.EDIT.equals(chatMessage.getType()) || SyncService.DELETE.equals(chatMessage.getType()))
+                    && !isAuthorOfTarget(chatMessage)) {
+                sendControlFrame(session, userId, error("forbidden", clientMessageId));
+                return;
+            }
+            chatMessage.setTraceParent(ChatTracing.traceParent(span));
+
+            // Retried sends carry the same id: acknowledge again, but never publish twice
+            chatMessage.setClientMessageId(clientMessageId);
+            if (clientMessageId != null && userId != null && !sendDeduplicator.firstSeen(userId, clientMessageId)) {
+                chatMetrics.recordDuplicate(tenantId);
+                sendControlFrame(session, userId, ack(clientMessageId, true));
+                return;
+            }
+
+            // Send to the conversation's shard queue; the template adds the AMQP traceparent header for the current span
+            try {
+                rabbitTemplate.convertAndSend(RabbitMQConfig.CHAT_EXCHANGE, chatShards.routingKey(chatMessage.getConversationId()),
+                        chatMessage, STAMP_PUBLISH_TIME);
+            } catch (AmqpException e) {
+                // not accepted: no ack, and the client's retry must not look like a duplicate
+                if (clientMessageId != null && userId != null) {
+                    sendDeduplicator.forget(userId, clientMessageId);
+                }
+                span.error(e);
+                chatMetrics.recordSendFailure(tenantId, ChatMetrics.PUBLISH);
+                log.warn("Could not publish message from user {}: {}", userId, e.getMessage());
+                return;
+            }
+            chatMetrics.recordIngress(tenantId, System.nanoTime() - start);
+            if (clientMessageId != null) {
+                sendControlFrame(session, userId, ack(clientMessageId, false));
+            }
+
         } catch (Exception e) {
-            System.err.println("Error processing message from user " + userId + ": " + e.getMessage());
-            e.printStackTrace();
+            span.error(e);
+            chatMetrics.recordSendFailure(tenantId, ChatMetrics.PARSE);
+            log.warn("Error processing message from user {}: {}", userId, e.getMessage());
+        } finally {
+            span.end();
         }
     }
     
+    // Applies the configured over-limit action; true when the frame should be processed
+    private boolean admit(WebSocketSession session, String userId, String tenantId, ChatRateLimiter.Decision decision) throws JsonProcessingException {
+        if (decision.allowed()) {
+            return true;
+        }
+        RateLimitAction action = rateLimiter.getAction();
+        chatMetrics.recordRateLimited(tenantId, decision.scope(), action.name().toLowerCase());
+        log.debug("Rate limited user {} ({} limit)", userId, decision.scope());
+        if (action == RateLimitAction.DISCONNECT) {
+            try {
+                session.close(CloseStatus.POLICY_VIOLATION.withReason("rate limit exceeded"));
+            } catch (IOException e) {
+                log.debug("Could not close rate limited session of user {}: {}", userId, e.getMessage());
+            }
+        } else {
+            Map<String, Object> frame = new LinkedHashMap<>();
+            frame.put("type", "error");
+            frame.put("code", "rate_limited");
+            frame.put("scope", decision.scope());
+            if (action == RateLimitAction.DELAY) {
+                // rounded up, so a client that waits exactly this long finds a token
+                frame.put("retryAfterMs", Math.max(1, TimeUnit.NANOSECONDS.toMillis(decision.retryAfterNanos() + 999_999)));
+            }
+            sendControlFrame(session, userId, mapper.writeValueAsString(frame));
+        }
+        return false;
+    }
+
+    private String ack(String clientMessageId, boolean duplicate) throws JsonProcessingException {
+        return mapper.writeValueAsString(Map.of("type", "ack", "clientMessageId", clientMessageId, "duplicate", duplicate));
+    }
+
+    private String error(String code, String clientMessageId) throws JsonProcessingException {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", "error");
+        frame.put("code", code);
+        if (clientMessageId != null) {
+            frame.put("clientMessageId", clientMessageId);
+        }
+        return mapper.writeValueAsString(frame);
+    }
+
+    // Channel frames need a membership row; a granted channel is remembered for the rest of the connection
+    @SuppressWarnings("unchecked")
+    private boolean mayUseChannel(WebSocketSession session, Object channelId) {
+        if (channelId == null) {
+            return true;
+        }
+        UUID userId = localUserId(session);
+        if (userId == null) {
+            return false;
+        }
+        Set<String> granted = (Set<String>) session.getAttributes()
+                .computeIfAbsent(GRANTED_CHANNELS, key -> ConcurrentHashMap.newKeySet());
+        String channel = channelId.toString();
+        if (granted.contains(channel)) {
+            return true;
+        }
+        try {
+            if (chatReadRepository.isChannelMember(UUID.fromString(channel), userId)) {
+                granted.add(channel);
+                return true;
+            }
+        } catch (IllegalArgumentException e) {
+            log.debug("Malformed channel id {} from user {}", channel, userId);
+        }
+        return false;
+    }
+
+    // users.id resolved at handshake; the "userId" attribute is the Keycloak sub and never matches membership rows
+    private static UUID localUserId(WebSocketSession session) {
+        Object localUserId = session.getAttributes().get("localUserId");
+        return localUserId != null ? UUID.fromString(localUserId.toString()) : null;
+    }
+
+    // Edits and deletes are only taken from the author of the target; a target already trimmed from the log is refused
+    private boolean isAuthorOfTarget(ChatMessageDTO chatMessage) {
+        if (chatMessage.getConversationId() == null || chatMessage.getTargetSeq() <= 0) {
+            return false;
+        }
+        ChatMessageDTO target = conversationLog.get(chatMessage.getConversationId(), chatMessage.getTargetSeq());
+        return target != null && chatMessage.getSenderId().equals(target.getSenderId());
+    }
+
+    // Channel messages carry channelId; anything else is a direct conversation between the two users
+    private static String conversationId(Map<String, Object> messageData, String userA, String userB) {
+        Object channelId = messageData.get("channelId");
+        if (channelId != null) {
+            return ConversationSequencer.channelConversationId(channelId.toString());
+        }
+        return userA != null && userB != null ? ConversationSequencer.directConversationId(userA, userB) : null;
+    }
+
+    // Goes through the registered (serialized) outbound session, deliveries may be writing concurrently
+    private void sendControlFrame(WebSocketSession session, String userId, String payload) {
+        WebSocketSession outbound = userId != null ? sessionManager.getSession(userId) : null;
+        try {
+            (outbound != null ? outbound : session).sendMessage(new TextMessage(payload));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Could not send control frame to user {}: {}", userId, e.getMessage());
+        }
+    }
+
     // Simple DTO for chat messages
-    public static class ChatMessageDTO {
+    public static class ChatMessageDTO implements Serializable {
         private String content;
         private String senderId;
         private String senderName;
         private String receiverId;
         private String timestamp;
         private String type;
+        private String tenantId;
+        // W3C traceparent of the last hop; the Redis leg has no headers to carry it
+        private String traceParent;
+        // Client-generated, unique per sender; retries reuse it
+        private String clientMessageId;
+        private String conversationId;
+        // Assigned by ChatMessageListener, gap-free per conversation; 0 when unsequenced
+        private long seq;
+        private long targetSeq;
         
         // Getters and setters
         public String getContent() { return content; }
@@ -98,5 +354,23 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
         
         public String getType() { return type; }
         public void setType(String type) { this.type = type; }
+
+        public String getTenantId() { return tenantId; }
+        public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+
+        public String getTraceParent() { return traceParent; }
+        public void setTraceParent(String traceParent) { this.traceParent = traceParent; }
+
+        public String getClientMessageId() { return clientMessageId; }
+        public void setClientMessageId(String clientMessageId) { this.clientMessageId = clientMessageId; }
+
+        public String getConversationId() { return conversationId; }
+        public void setConversationId(String conversationId) { this.conversationId = conversationId; }
+
+        public long getSeq() { return seq; }
+        public void setSeq(long seq) { this.seq = seq; }
+
+        public long getTargetSeq() { return targetSeq; }
+        public void setTargetSeq(long targetSeq) { this.targetSeq = targetSeq; }
     }
 }
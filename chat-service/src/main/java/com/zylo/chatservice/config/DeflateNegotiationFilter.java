@@ -0,0 +1,106 @@
+package com.zylo.chatservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Shapes the permessage-deflate (RFC 7692) offer of /ws/chat handshakes before Tomcat
+ * negotiates it. Tomcat accepts any offer as-is and has no server-side settings, so the
+ * policy is applied to the client's Sec-WebSocket-Extensions header instead: the offer is
+ * dropped when compression is off, and the no-context-takeover parameters are added when
+ * configured, which Tomcat then confirms in its response and honours for the connection.
+ */
+@Component
+public class DeflateNegotiationFilter extends OncePerRequestFilter {
+
+    private static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    private static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    private static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+
+    @Value("${zylo.chat.compression.enabled:true}")
+    private boolean enabled;
+
+    // Each message compressed on its own: no 32 KiB window carried between messages
+    @Value("${zylo.chat.compression.server-no-context-takeover:false}")
+    private boolean serverNoContextTakeover;
+
+    @Value("${zylo.chat.compression.client-no-context-takeover:false}")
+    private boolean clientNoContextTakeover;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(EXTENSIONS_HEADER) == null || !request.getRequestURI().endsWith("/ws/chat");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        List<String> offers = new ArrayList<>();
+        for (Enumeration<String> values = request.getHeaders(EXTENSIONS_HEADER); values.hasMoreElements(); ) {
+            for (String offer : values.nextElement().split(",")) {
+                String rewritten = rewrite(offer.trim());
+                if (rewritten != null) {
+                    offers.add(rewritten);
+                }
+            }
+        }
+        filterChain.doFilter(new ExtensionsRequest(request, offers), response);
+    }
+
+    // null drops the offer
+    private String rewrite(String offer) {
+        String name = offer.split(";", 2)[0].trim();
+        if (!PERMESSAGE_DEFLATE.equalsIgnoreCase(name)) {
+            return offer.isEmpty() ? null : offer;
+        }
+        if (!enabled) {
+            return null;
+        }
+        StringBuilder rewritten = new StringBuilder(offer);
+        if (serverNoContextTakeover && !offer.contains(SERVER_NO_CONTEXT_TAKEOVER)) {
+            rewritten.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (clientNoContextTakeover && !offer.contains(CLIENT_NO_CONTEXT_TAKEOVER)) {
+            rewritten.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        return rewritten.toString();
+    }
+
+    private static final class ExtensionsRequest extends HttpServletRequestWrapper {
+        private final List<String> offers;
+
+        private ExtensionsRequest(HttpServletRequest request, List<String> offers) {
+            super(request);
+            this.offers = offers;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return offers.isEmpty() ? null : String.join(", ", offers);
+            }
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (EXTENSIONS_HEADER.equalsIgnoreCase(name)) {
+                return Collections.enumeration(offers.isEmpty() ? List.of() : List.of(String.join(", ", offers)));
+            }
+            return super.getHeaders(name);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.zylo.chatservice.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.chatservice.metrics.ChatMetrics;
+import com.zylo.chatservice.tracing.ChatTracing;
+import com.zylo.chatservice.websocket.ReceiptAggregator;
+import com.zylo.chatservice.websocket.SessionManager;
+import io.micrometer.tracing.Span;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+
+// Last hop of the pipeline, shared by the RabbitMQ listener (path=local) and the Redis subscriber (path=redis)
+@Component
+public class MessageDelivery {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageDelivery.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private SessionManager sessionManager;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    @Autowired
+    private ChatTracing chatTracing;
+
+    @Autowired
+    private ReceiptAggregator receiptAggregator;
+
+    public void deliver(ChatWebSocketHandler.ChatMessageDTO message, String path) {
+        String tenantId = message.getTenantId();
+        WebSocketSession session = sessionManager.getSession(message.getReceiverId());
+        if (session == null || !session.isOpen()) {
+            chatMetrics.recordSendFailure(tenantId, ChatMetrics.CLOSED);
+            log.debug("No open session for user {}", message.getReceiverId());
+            return;
+        }
+        Span span = chatTracing.start("chat.socket.send", tenantId).tag("path", path);
+        try {
+            TextMessage frame = new TextMessage(objectMapper.writeValueAsString(message));
+            long start = System.nanoTime();
+            session.sendMessage(frame);
+            chatMetrics.recordDelivered(tenantId, path, System.nanoTime() - start);
+            receiptAggregator.delivered(message.getConversationId(), message.getSenderId(), message.getReceiverId(),
+                    tenantId, message.getSeq(), message.getClientMessageId());
+        } catch (JsonProcessingException e) {
+            span.error(e);
+            chatMetrics.recordSendFailure(tenantId, ChatMetrics.PARSE);
+            log.warn("Could not encode message for user {}: {}", message.getReceiverId(), e.getMessage());
+        } catch (IOException | IllegalStateException e) {
+            span.error(e);
+            chatMetrics.recordSendFailure(tenantId, ChatMetrics.IO);
+            log.debug("Send to user {} failed: {}", message.getReceiverId(), e.getMessage());
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.zylo.chatservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Every meter carries the node it was recorded on, the same id the session registry routes by
+    @Bean
+    public MeterRegistryCustomizer<MeterRegistry> nodeTagCustomizer(String serverId) {
+        return registry -> registry.config().commonTags("node", serverId);
+    }
+}
@@ -2,15 +2,22 @@ package com.zylo.chatservice.config;
 
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 @Configuration
 public class RabbitMQConfig {
 
+    // Pre-sharding queue, still consumed so nothing published by older nodes is stranded
     public static final String CHAT_QUEUE = "chat.queue";
     public static final String CHAT_EXCHANGE = "chat.exchange";
     public static final String CHAT_ROUTING_KEY = "chat.message";
@@ -29,4 +36,19 @@ public class RabbitMQConfig {
     public Binding binding(Queue chatQueue, TopicExchange chatExchange) {
         return BindingBuilder.bind(chatQueue).to(chatExchange).with(CHAT_ROUTING_KEY);
     }
+
+    // Quorum queues with single active consumer: one node at a time consumes a shard, failing over in order
+    @Bean
+    public Declarables chatShardQueues(ChatShards chatShards, TopicExchange chatExchange) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (int shard = 0; shard < chatShards.getCount(); shard++) {
+            Queue queue = QueueBuilder.durable(ChatShards.queueName(shard))
+                    .quorum()
+                    .singleActiveConsumer()
+                    .build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(chatExchange).with(ChatShards.ROUTING_KEY_PREFIX + shard));
+        }
+        return new Declarables(declarables);
+    }
 }
@@ -1,5 +1,8 @@
 package com.zylo.chatservice.config;
 
+import com.zylo.chatservice.dto.ReceiptBatch;
+import com.zylo.chatservice.websocket.ReceiptAggregator;
+import com.zylo.common.config.CompactRedisSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
@@ -10,6 +13,15 @@ import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
 @Configuration
 public class RedisChatConfig {
 
+    // Stored type ids for CompactRedisSerializer; never reuse or renumber
+    public static final int CHAT_MESSAGE_TYPE_ID = 1;
+    public static final int RECEIPT_BATCH_TYPE_ID = 2;
+
+    public RedisChatConfig(CompactRedisSerializer compactRedisSerializer) {
+        compactRedisSerializer.registerType(CHAT_MESSAGE_TYPE_ID, ChatWebSocketHandler.ChatMessageDTO.class);
+        compactRedisSerializer.registerType(RECEIPT_BATCH_TYPE_ID, ReceiptBatch.class);
+    }
+
     @Bean
     public ChannelTopic chatChannelTopic() {
         return new ChannelTopic("chat_channel");
@@ -20,15 +32,28 @@ public class RedisChatConfig {
         return new MessageListenerAdapter(redisChatSubscriber, "onMessage");
     }
 
+    @Bean
+    public ChannelTopic receiptChannelTopic() {
+        return new ChannelTopic(ReceiptAggregator.CHANNEL);
+    }
+
+    @Bean
+    public MessageListenerAdapter receiptListenerAdapter(RedisReceiptSubscriber redisReceiptSubscriber) {
+        return new MessageListenerAdapter(redisReceiptSubscriber, "onMessage");
+    }
+
     @Bean
     public RedisMessageListenerContainer redisMessageListenerContainer(
             RedisConnectionFactory connectionFactory,
             MessageListenerAdapter chatMessageListenerAdapter,
-            ChannelTopic chatChannelTopic) {
+            ChannelTopic chatChannelTopic,
+            MessageListenerAdapter receiptListenerAdapter,
+            ChannelTopic receiptChannelTopic) {
         
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
         container.addMessageListener(chatMessageListenerAdapter, chatChannelTopic);
+        container.addMessageListener(receiptListenerAdapter, receiptChannelTopic);
         return container;
     }
 }
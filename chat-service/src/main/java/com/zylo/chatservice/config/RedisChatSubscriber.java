@@ -1,45 +1,59 @@
 package com.zylo.chatservice.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.chatservice.metrics.ChatMetrics;
+import com.zylo.chatservice.tracing.ChatTracing;
 import com.zylo.chatservice.websocket.SessionManager;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
-
-import java.io.IOException;
 
 @Component
 public class RedisChatSubscriber implements MessageListener {
-    
+
+    private static final Logger log = LoggerFactory.getLogger(RedisChatSubscriber.class);
+
     @Autowired
     private SessionManager sessionManager;
+
+    @Autowired
+    private MessageDelivery messageDelivery;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    @Autowired
+    private ChatTracing chatTracing;
+
+    // Same serializer ChatMessageListener publishes with through the shared RedisTemplate
+    @Autowired
+    private RedisSerializer<Object> redisValueSerializer;
     
     @Override
     public void onMessage(Message message, byte[] pattern) {
+        ChatWebSocketHandler.ChatMessageDTO chatMessage;
         try {
-            // Parse the chat message from Redis
-            ChatWebSocketHandler.ChatMessageDTO chatMessage = 
-                new ObjectMapper().readValue(message.getBody(), ChatWebSocketHandler.ChatMessageDTO.class);
-            
-            System.out.println("Received message from Redis for user: " + chatMessage.getReceiverId());
-            
-            // Check if the target user is on this server
-            if (sessionManager.isUserOnThisServer(chatMessage.getReceiverId())) {
-                WebSocketSession session = sessionManager.getSession(chatMessage.getReceiverId());
-                if (session != null && session.isOpen()) {
-                    // Forward the message to the WebSocket client
-                    session.sendMessage(new TextMessage(new ObjectMapper().writeValueAsString(chatMessage)));
-                    System.out.println("Message delivered from Redis to user " + chatMessage.getReceiverId());
-                } else {
-                    System.out.println("Session not found or closed for user from Redis: " + chatMessage.getReceiverId());
-                }
+            chatMessage = (ChatWebSocketHandler.ChatMessageDTO) redisValueSerializer.deserialize(message.getBody());
+        } catch (SerializationException | ClassCastException e) {
+            chatMetrics.recordSendFailure(null, ChatMetrics.PARSE);
+            log.warn("Error processing Redis message: {}", e.getMessage());
+            return;
+        }
+
+        // Every node receives the broadcast; only the one holding the session delivers (and traces)
+        if (sessionManager.isUserOnThisServer(chatMessage.getReceiverId())) {
+            Span span = chatTracing.startFromTraceParent("chat.redis.receive", chatMessage.getTraceParent(), chatMessage.getTenantId());
+            try (Tracer.SpanInScope ignored = chatTracing.withSpan(span)) {
+                messageDelivery.deliver(chatMessage, ChatMetrics.REDIS);
+            } finally {
+                span.end();
             }
-        } catch (IOException e) {
-            System.err.println("Error processing Redis message: " + e.getMessage());
-            e.printStackTrace();
         }
     }
 }
@@ -0,0 +1,44 @@
+package com.zylo.chatservice.config;
+
+import com.zylo.chatservice.dto.ReceiptBatch;
+import com.zylo.chatservice.metrics.ChatMetrics;
+import com.zylo.chatservice.websocket.ReceiptAggregator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+@Component
+public class RedisReceiptSubscriber implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisReceiptSubscriber.class);
+
+    @Autowired
+    private ReceiptAggregator receiptAggregator;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    @Autowired
+    private RedisSerializer<Object> redisValueSerializer;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ReceiptBatch batch;
+        try {
+            batch = (ReceiptBatch) redisValueSerializer.deserialize(message.getBody());
+        } catch (SerializationException | ClassCastException e) {
+            chatMetrics.recordSendFailure(null, ChatMetrics.PARSE);
+            log.warn("Error processing Redis receipts: {}", e.getMessage());
+            return;
+        }
+        // The publishing node already delivered everything it could locally
+        if (batch != null && batch.receipts() != null && !receiptAggregator.isOwnBatch(batch)) {
+            receiptAggregator.deliverLocal(batch.receipts());
+        }
+    }
+}
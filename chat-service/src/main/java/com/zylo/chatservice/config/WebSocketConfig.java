@@ -1,15 +1,23 @@
 package com.zylo.chatservice.config;
 
+import com.zylo.chatservice.gateway.ReactiveChatGateway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 
+// Servlet endpoint; the reactive-gateway profile serves /ws/chat from ReactiveChatGateway instead
 @Configuration
+@Profile("!" + ReactiveChatGateway.PROFILE)
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConfig.class);
+
     @Autowired
     private ChatWebSocketHandler chatWebSocketHandler;
 
@@ -24,13 +32,11 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        System.out.println("Registering Chat WebSocket handlers...");
-        
         // Primary chat endpoint with authentication
         registry.addHandler(chatWebSocketHandler, "/ws/chat")
                 .addInterceptors(authInterceptor)
                 .setAllowedOriginPatterns("http://localhost:3000", "http://localhost:8080", "*");
         
-        System.out.println("Chat WebSocket handler registered at /ws/chat");
+        log.info("Chat WebSocket handler registered at /ws/chat");
     }
 }
@@ -0,0 +1,164 @@
+package com.zylo.chatservice.controller;
+
+import com.zylo.authservice.component.UserIdentityResolver;
+import com.zylo.authservice.config.TenantContext;
+import com.zylo.authservice.exception.ResourceNotFoundException;
+import com.zylo.chatservice.dto.UploadSessionRequest;
+import com.zylo.chatservice.dto.UploadSessionResponse;
+import com.zylo.chatservice.entity.AttachmentBlob;
+import com.zylo.chatservice.service.AttachmentService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/attachments")
+public class AttachmentController {
+
+    // Tomcat NIO sendfile: the container writes the file region to the socket itself
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private UserIdentityResolver userIdentityResolver;
+
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionResponse> startUpload(@RequestBody UploadSessionRequest request) {
+        UploadSessionResponse upload = attachmentService.startUpload(TenantContext.getTenantId(), currentUserId(), request);
+        return ResponseEntity.created(URI.create("/api/v1/attachments/uploads/" + upload.getUploadId())).body(upload);
+    }
+
+    // Resume point for an interrupted upload
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getUpload(@PathVariable UUID uploadId) throws IOException {
+        return ResponseEntity.ok(attachmentService.getUpload(TenantContext.getTenantId(), currentUserId(), uploadId));
+    }
+
+    // Raw request body is streamed into the blob store, never read into memory
+    @PutMapping(value = "/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<UploadSessionResponse> uploadChunk(@PathVariable UUID uploadId,
+                                                             @RequestHeader("Upload-Offset") long offset,
+                                                             HttpServletRequest request) throws IOException {
+        UUID tenantId = TenantContext.getTenantId();
+        UUID userId = currentUserId();
+        UploadSessionResponse current = attachmentService.getUpload(tenantId, userId, uploadId);
+        if (offset != current.getReceivedBytes()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(current);
+        }
+        return ResponseEntity.ok(attachmentService.appendChunk(tenantId, userId, uploadId, offset, request.getInputStream()));
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<UploadSessionResponse> completeUpload(@PathVariable UUID uploadId) throws IOException {
+        return ResponseEntity.ok(attachmentService.completeUpload(TenantContext.getTenantId(), currentUserId(), uploadId));
+    }
+
+    @GetMapping("/blobs/{blobId}")
+    public void download(@PathVariable UUID blobId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AttachmentBlob blob = attachmentService.getBlob(TenantContext.getTenantId(), currentUserId(), blobId);
+        long size = blob.getSizeBytes();
+        String etag = "\"" + blob.getSha256() + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // content-addressed, so the bytes behind this URL never change
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        response.setContentType(blob.getContentType() != null ? blob.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] parsed = parseRange(range, size);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (length <= 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        Optional<Path> file = attachmentService.localPath(blob);
+        if (file.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.get().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        attachmentService.transferTo(blob, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+
+    // users.id of the caller: uploaded_by and the membership join in canRead both reference it, not the sub
+    private UUID currentUserId() {
+        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        UUID userId = userIdentityResolver.resolve(jwt);
+        if (userId == null) {
+            throw new ResourceNotFoundException("User " + jwt.getSubject());
+        }
+        return userId;
+    }
+
+    // Single byte range only: {start, end} inclusive, empty for "serve the whole file", null when unsatisfiable
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), size - 1);
+            }
+            return start >= size || start > end ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.zylo.chatservice.controller;
+
+import com.zylo.authservice.component.UserIdentityResolver;
+import com.zylo.authservice.config.TenantContext;
+import com.zylo.authservice.exception.ResourceNotFoundException;
+import com.zylo.chatservice.dto.MessageView;
+import com.zylo.chatservice.repository.ChatReadRepository;
+import com.zylo.chatservice.service.ChatHistoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/channels")
+public class ChannelMessagesController {
+
+    private static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+
+    @Autowired
+    private ChatReadRepository chatReadRepository;
+
+    @Autowired
+    private UserIdentityResolver userIdentityResolver;
+
+    @GetMapping("/{channelId}/messages")
+    public ResponseEntity<List<MessageView>> getChannelMessages(@PathVariable UUID channelId,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                                                @RequestParam(required = false) UUID beforeId,
+                                                                @RequestParam(defaultValue = "50") int limit) {
+        Jwt jwt = (Jwt) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        // Membership rows hold users.id, not the Keycloak sub
+        UUID userId = userIdentityResolver.resolve(jwt);
+        if (userId == null || !chatReadRepository.isChannelMember(channelId, userId)) {
+            throw new ResourceNotFoundException("Channel " + channelId);
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(chatHistoryService.getChannelMessages(TenantContext.getTenantId(), channelId, before, beforeId, pageSize));
+    }
+}
@@ -0,0 +1,14 @@
+package com.zylo.chatservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ChannelMemberView(
+        UUID userId,
+        String username,
+        String firstName,
+        String lastName,
+        String avatarUrl,
+        String role,
+        LocalDateTime joinedAt) {
+}
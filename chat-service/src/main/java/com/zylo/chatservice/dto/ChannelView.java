@@ -0,0 +1,13 @@
+package com.zylo.chatservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record ChannelView(
+        UUID id,
+        String name,
+        String type,
+        String description,
+        boolean archived,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,18 @@
+package com.zylo.chatservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Flat read model for message lists: author fields come from one join, nothing is lazy-loaded
+public record MessageView(
+        UUID id,
+        UUID channelId,
+        UUID threadId,
+        UUID parentId,
+        UUID userId,
+        String username,
+        String content,
+        String type,
+        LocalDateTime createdAt,
+        LocalDateTime editedAt) {
+}
@@ -0,0 +1,15 @@
+package com.zylo.chatservice.dto;
+
+// Cumulative receipt: readerId has received (or read) everything from senderId in the conversation up to seq upTo
+public record Receipt(
+        String conversationId,
+        String senderId,
+        String readerId,
+        String tenantId,
+        String status,
+        long upTo,
+        String clientMessageId) {
+
+    public static final String DELIVERED = "delivered";
+    public static final String READ = "read";
+}
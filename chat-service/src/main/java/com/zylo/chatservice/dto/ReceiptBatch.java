@@ -0,0 +1,7 @@
+package com.zylo.chatservice.dto;
+
+import java.util.List;
+
+// One flush worth of receipts for senders connected to other nodes
+public record ReceiptBatch(String serverId, List<Receipt> receipts) {
+}
@@ -0,0 +1,38 @@
+package com.zylo.chatservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zylo.chatservice.config.ChatWebSocketHandler;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One conversation's answer to a sync frame. Edits and deletes of messages inside the delta are
+ * already folded into messages; edits, deletes and reactions only list what happened to
+ * messages the client had before its cursor. latestSeq is the cursor for the next sync, and
+ * hasMore asks for another round straight away.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record SyncDelta(
+        String conversationId,
+        String status,
+        long latestSeq,
+        boolean hasMore,
+        List<ChatWebSocketHandler.ChatMessageDTO> messages,
+        Map<Long, String> edits,
+        List<Long> deletes,
+        List<ReactionDelta> reactions) {
+
+    public static final String OK = "ok";
+    // Cursor is older than the retained log: reload the conversation over REST
+    public static final String REFETCH = "refetch";
+    public static final String FORBIDDEN = "forbidden";
+
+    public static SyncDelta of(String conversationId, String status, long latestSeq) {
+        return new SyncDelta(conversationId, status, latestSeq, false, List.of(), Map.of(), List.of(), List.of());
+    }
+
+    // Net change in an emoji's count on message seq since the cursor
+    public record ReactionDelta(long seq, String emoji, int delta) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.zylo.chatservice.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+@Setter
+@Getter
+@ToString
+public class UploadSessionRequest {
+    private String fileName;
+    private String contentType;
+    private long size;
+}
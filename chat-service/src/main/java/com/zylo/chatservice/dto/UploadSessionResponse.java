@@ -0,0 +1,32 @@
+package com.zylo.chatservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.zylo.chatservice.entity.AttachmentUpload;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.UUID;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UploadSessionResponse {
+    private UUID uploadId;
+    private String status;
+    private long totalSize;
+    // Next offset to send; equal to totalSize once every byte is staged
+    private long receivedBytes;
+    private UUID blobId;
+    private String url;
+
+    public static UploadSessionResponse getUploadResponse(AttachmentUpload upload, long receivedBytes) {
+        return UploadSessionResponse.builder()
+                .uploadId(upload.getId())
+                .status(upload.getStatus())
+                .totalSize(upload.getTotalSize())
+                .receivedBytes(receivedBytes)
+                .blobId(upload.getBlobId())
+                .url(upload.getBlobId() == null ? null : "/api/v1/attachments/blobs/" + upload.getBlobId())
+                .build();
+    }
+}
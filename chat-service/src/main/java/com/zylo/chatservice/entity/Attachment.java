@@ -2,6 +2,7 @@ package com.zylo.chatservice.entity;
 
 import com.zylo.authservice.entity.Tenant;
 import com.zylo.common.entity.BaseEntity;
+import com.zylo.common.id.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -14,14 +15,14 @@ import java.util.UUID;
 @Setter
 public class Attachment extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "message_id", nullable = false)
     private Message message;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tenant_id", nullable = false)
     private Tenant tenant;
 
@@ -36,4 +37,8 @@ public class Attachment extends BaseEntity {
 
     @Column(nullable = false)
     private String url;
+
+    // Set for files uploaded through AttachmentService; several attachments may share one blob
+    @Column(name = "blob_id")
+    private UUID blobId;
 }
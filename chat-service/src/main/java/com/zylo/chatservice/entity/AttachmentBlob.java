@@ -0,0 +1,34 @@
+package com.zylo.chatservice.entity;
+
+import com.zylo.common.entity.BaseEntity;
+import com.zylo.common.id.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "attachment_blobs")
+@Getter
+@Setter
+public class AttachmentBlob extends BaseEntity {
+    @Id
+    @TimeOrderedUuid
+    private UUID id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private UUID tenantId;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+}
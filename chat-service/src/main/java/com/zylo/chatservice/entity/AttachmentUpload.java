@@ -0,0 +1,44 @@
+package com.zylo.chatservice.entity;
+
+import com.zylo.common.entity.BaseEntity;
+import com.zylo.common.id.TimeOrderedUuid;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "attachment_uploads")
+@Getter
+@Setter
+public class AttachmentUpload extends BaseEntity {
+
+    public static final String UPLOADING = "UPLOADING";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    @TimeOrderedUuid
+    private UUID id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private UUID tenantId;
+
+    @Column(name = "uploaded_by")
+    private UUID uploadedBy;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "total_size", nullable = false)
+    private long totalSize;
+
+    @Column(nullable = false)
+    private String status = UPLOADING;
+
+    @Column(name = "blob_id")
+    private UUID blobId;
+}
@@ -3,6 +3,7 @@ package com.zylo.chatservice.entity;
 import com.zylo.authservice.entity.Tenant;
 import com.zylo.authservice.entity.User;
 import com.zylo.common.entity.BaseEntity;
+import com.zylo.common.id.TimeOrderedUuid;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,14 +16,14 @@ import java.util.UUID;
 @Setter
 public class Channel extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tenant_id", nullable = false)
     private Tenant tenant;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "admin_id")
     private User admin;
 
@@ -33,7 +34,7 @@ public class Channel extends BaseEntity {
 
     private String description;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by", nullable = false)
     private User createdBy;
 
@@ -16,12 +16,12 @@ public class ChannelMember {
     @EmbeddedId
     private ChannelMemberId id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("channelId")
     @JoinColumn(name = "channel_id")
     private Channel channel;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("userId")
     @JoinColumn(name = "user_id")
     private User user;
@@ -0,0 +1,164 @@
+package com.zylo.chatservice.gateway;
+
+import com.zylo.chatservice.config.AuthHandshakeInterceptor;
+import com.zylo.chatservice.config.ChatWebSocketHandler;
+import com.zylo.chatservice.websocket.NodeDrainer;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.WebsocketServerSpec;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.netty.resources.LoopResources;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * /ws/chat on Reactor Netty, for nodes that mostly hold idle connections. A connection costs
+ * a channel and a small frame queue rather than a thread; the event loops only parse and write
+ * frames. Handshake auth, ChatWebSocketHandler and the session registry are the same beans the
+ * servlet endpoint uses. Their Redis and RabbitMQ calls block, so each connection's frames are
+ * handled in order on the bounded elastic scheduler, which only holds a thread while a frame is
+ * being processed.
+ * <p>
+ * Enabled by the reactive-gateway profile, which also takes the servlet endpoint out; REST and
+ * actuator stay on the servlet port.
+ */
+@Component
+@Profile(ReactiveChatGateway.PROFILE)
+public class ReactiveChatGateway implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveChatGateway.class);
+
+    public static final String PROFILE = "reactive-gateway";
+
+    private static final String PATH = "/ws/chat";
+
+    @Autowired
+    private ChatWebSocketHandler chatWebSocketHandler;
+
+    @Autowired
+    private AuthHandshakeInterceptor authInterceptor;
+
+    @Autowired
+    private NodeDrainer nodeDrainer;
+
+    @Value("${zylo.gateway.port:8082}")
+    private int port;
+
+    // 0 = one per core
+    @Value("${zylo.gateway.event-loop-threads:0}")
+    private int eventLoopThreads;
+
+    @Value("${zylo.gateway.send-limit-frames:256}")
+    private int sendLimitFrames;
+
+    @Value("${zylo.gateway.max-frame-bytes:65536}")
+    private int maxFrameBytes;
+
+    @Value("${zylo.chat.compression.enabled:true}")
+    private boolean compression;
+
+    private volatile DisposableServer server;
+
+    @Override
+    public void start() {
+        LoopResources loops = eventLoopThreads > 0
+                ? LoopResources.create("chat-gateway", eventLoopThreads, true)
+                : LoopResources.create("chat-gateway");
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .route(routes -> routes.get(PATH, this::handshake))
+                .bindNow();
+        log.info("Reactive chat gateway listening on port {} at {}", server.port(), PATH);
+    }
+
+    @Override
+    public void stop() {
+        DisposableServer current = server;
+        if (current != null) {
+            current.disposeNow(Duration.ofSeconds(10));
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    // Same checks as AuthHandshakeInterceptor; JWT decoding may fetch keys, so it is kept off the event loop
+    private Publisher<Void> handshake(HttpServerRequest request, HttpServerResponse response) {
+        if (nodeDrainer.isDraining()) {
+            return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send();
+        }
+        List<String> tokens = new QueryStringDecoder(request.uri()).parameters().get("token");
+        String token = tokens != null && !tokens.isEmpty() ? tokens.get(0) : null;
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return Mono.fromCallable(() -> authInterceptor.authenticate(token, attributes))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(authenticated -> authenticated
+                        ? Mono.from(response.sendWebsocket((in, out) -> {
+                            HttpHeaders headers = new HttpHeaders();
+                            request.requestHeaders().forEach(header -> headers.add(header.getKey(), header.getValue()));
+                            ReactorNettySession session = new ReactorNettySession(UUID.randomUUID().toString(),
+                                    URI.create(request.uri()), headers, attributes,
+                                    request.hostAddress(), request.remoteAddress(), out, sendLimitFrames);
+                            return connection(session, in, out);
+                        }, WebsocketServerSpec.builder().maxFramePayloadLength(maxFrameBytes).compress(compression).build()))
+                        : Mono.from(response.status(HttpResponseStatus.UNAUTHORIZED).send()));
+    }
+
+    private Publisher<Void> connection(ReactorNettySession session, WebsocketInbound in, WebsocketOutbound out) {
+        Mono<Void> opened = Mono.fromRunnable(() -> call(() -> chatWebSocketHandler.afterConnectionEstablished(session)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+        Mono<Void> inbound = in.aggregateFrames(maxFrameBytes)
+                .receiveFrames()
+                .ofType(TextWebSocketFrame.class)
+                .map(TextWebSocketFrame::text)
+                .concatMap(text -> Mono.fromRunnable(() -> call(() -> chatWebSocketHandler.handleMessage(session, new TextMessage(text))))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then();
+        Mono<Void> outbound = out.sendString(session.outboundFrames()).then();
+        return opened
+                .then(Mono.when(inbound.doFinally(signal -> session.closed()), outbound))
+                .doFinally(signal -> Schedulers.boundedElastic().schedule(() ->
+                        call(() -> chatWebSocketHandler.afterConnectionClosed(session, CloseStatus.NORMAL))));
+    }
+
+    private interface Callback {
+        void run() throws Exception;
+    }
+
+    private static void call(Callback callback) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            log.warn("WebSocket callback failed: {}", e.getMessage());
+        }
+    }
+}
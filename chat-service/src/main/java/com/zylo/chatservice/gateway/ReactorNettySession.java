@@ -0,0 +1,185 @@
+package com.zylo.chatservice.gateway;
+
+import com.zylo.chatservice.websocket.NodeDrainer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.websocket.WebsocketOutbound;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Presents a Reactor Netty connection as a Spring WebSocketSession, so SessionManager,
+ * MessageDelivery and the rest of the pipeline work unchanged on the reactive gateway.
+ * sendMessage never blocks: text frames go into a small per-connection queue drained by
+ * Netty as the socket allows, and a reader that falls more than sendLimit frames behind is
+ * closed, like ConcurrentWebSocketSessionDecorator does on the servlet side.
+ */
+class ReactorNettySession implements WebSocketSession, NodeDrainer.OutboundQueue {
+
+    private final String id;
+    private final URI uri;
+    private final HttpHeaders handshakeHeaders;
+    private final Map<String, Object> attributes;
+    private final InetSocketAddress localAddress;
+    private final InetSocketAddress remoteAddress;
+    private final WebsocketOutbound outbound;
+    private final int sendLimit;
+
+    // Small first chunk: most connections are idle and never queue more than a frame or two
+    private final Sinks.Many<String> frames = Sinks.many().unicast().onBackpressureBuffer(Queues.<String>unbounded(8).get());
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean open = true;
+    private int textMessageSizeLimit;
+
+    ReactorNettySession(String id, URI uri, HttpHeaders handshakeHeaders, Map<String, Object> attributes,
+                        InetSocketAddress localAddress, InetSocketAddress remoteAddress,
+                        WebsocketOutbound outbound, int sendLimit) {
+        this.id = id;
+        this.uri = uri;
+        this.handshakeHeaders = handshakeHeaders;
+        this.attributes = attributes;
+        this.localAddress = localAddress;
+        this.remoteAddress = remoteAddress;
+        this.outbound = outbound;
+        this.sendLimit = sendLimit;
+    }
+
+    // Frames for Netty to write, in order
+    Flux<String> outboundFrames() {
+        return frames.asFlux().doOnNext(frame -> pending.decrementAndGet());
+    }
+
+    // Queued but not yet handed to Netty; the node drain waits for this to reach zero
+    @Override
+    public int pendingFrames() {
+        return Math.max(pending.get(), 0);
+    }
+
+    // The client went away; nothing more will be written
+    void closed() {
+        open = false;
+        frames.tryEmitComplete();
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (!(message instanceof TextMessage text)) {
+            throw new IllegalArgumentException("Only text frames are supported: " + message.getClass().getSimpleName());
+        }
+        if (!open) {
+            throw new IllegalStateException("Session " + id + " is closed");
+        }
+        if (pending.incrementAndGet() > sendLimit) {
+            close(CloseStatus.SESSION_NOT_RELIABLE.withReason("send buffer limit exceeded"));
+            throw new IOException("Session " + id + " is not reading its frames");
+        }
+        // Emission has to be serialized; deliveries, receipts and control frames come from different threads
+        Sinks.EmitResult result;
+        synchronized (frames) {
+            result = frames.tryEmitNext(text.getPayload());
+        }
+        if (result.isFailure()) {
+            pending.decrementAndGet();
+            throw new IOException("Could not queue frame for session " + id + ": " + result);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        synchronized (frames) {
+            frames.tryEmitComplete();
+        }
+        outbound.sendClose(status.getCode(), status.getReason()).subscribe();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public URI getUri() {
+        return uri;
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return handshakeHeaders;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return localAddress;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return null;
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+        this.textMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return textMessageSizeLimit;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return 0;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+}
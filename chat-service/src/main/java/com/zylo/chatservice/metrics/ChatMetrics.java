@@ -0,0 +1,157 @@
+package com.zylo.chatservice.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters for each stage of the message pipeline, tagged by tenant (the node tag is a
+ * registry-wide common tag, see MetricsConfig). Meters are resolved once per tenant and
+ * cached, so recording on the hot path is a map lookup plus the meter update.
+ * <pre>
+ * zylo.chat.ingress         frame received -> published to RabbitMQ
+ * zylo.chat.queue.dwell     published -> picked up by a listener
+ * zylo.chat.route.lookup    receiver location lookup in the session registry
+ * zylo.chat.socket.send     write to the receiver's WebSocket, path=local|redis
+ * zylo.chat.delivered       messages written to a socket, path=local|redis
+ * zylo.chat.forwarded       messages handed to another node through Redis
+ * zylo.chat.send.failures   reason=closed|io|parse|publish
+ * zylo.chat.receipts        cumulative receipts flushed, path=local|redis
+ * zylo.chat.duplicates      retried sends acknowledged without being published again
+ * zylo.chat.rate.limited    frames over a limit, scope=user|tenant, action=reject|delay|disconnect
+ * zylo.chat.sessions.active open WebSocket sessions on this node
+ * </pre>
+ */
+@Component
+public class ChatMetrics {
+
+    public static final String LOCAL = "local";
+    public static final String REDIS = "redis";
+
+    public static final String CLOSED = "closed";
+    public static final String IO = "io";
+    public static final String PARSE = "parse";
+    public static final String PUBLISH = "publish";
+
+    private static final String NO_TENANT = "none";
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, TenantMeters> meters = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordIngress(String tenantId, long nanos) {
+        tenant(tenantId).ingress.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordQueueDwell(String tenantId, long millis) {
+        if (millis >= 0) {
+            tenant(tenantId).queueDwell.record(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void recordRouteLookup(String tenantId, long nanos) {
+        tenant(tenantId).routeLookup.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDelivered(String tenantId, String path, long sendNanos) {
+        TenantMeters tenant = tenant(tenantId);
+        if (LOCAL.equals(path)) {
+            tenant.localSend.record(sendNanos, TimeUnit.NANOSECONDS);
+            tenant.deliveredLocal.increment();
+        } else {
+            tenant.redisSend.record(sendNanos, TimeUnit.NANOSECONDS);
+            tenant.deliveredRedis.increment();
+        }
+    }
+
+    public void recordForwarded(String tenantId) {
+        tenant(tenantId).forwarded.increment();
+    }
+
+    public void recordSendFailure(String tenantId, String reason) {
+        String tenant = tenantId != null ? tenantId : NO_TENANT;
+        Counter.builder("zylo.chat.send.failures")
+                .tag("tenant", tenant)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordReceipts(String path, int count) {
+        Counter.builder("zylo.chat.receipts")
+                .tag("path", path)
+                .register(registry)
+                .increment(count);
+    }
+
+    public void recordDuplicate(String tenantId) {
+        Counter.builder("zylo.chat.duplicates")
+                .tag("tenant", tenantId != null ? tenantId : NO_TENANT)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordRateLimited(String tenantId, String scope, String action) {
+        Counter.builder("zylo.chat.rate.limited")
+                .tag("tenant", tenantId != null ? tenantId : NO_TENANT)
+                .tag("scope", scope)
+                .tag("action", action)
+                .register(registry)
+                .increment();
+    }
+
+    public void sessionOpened(String tenantId) {
+        tenant(tenantId).activeSessions.incrementAndGet();
+    }
+
+    public void sessionClosed(String tenantId) {
+        tenant(tenantId).activeSessions.decrementAndGet();
+    }
+
+    private TenantMeters tenant(String tenantId) {
+        return meters.computeIfAbsent(tenantId != null ? tenantId : NO_TENANT, this::createMeters);
+    }
+
+    private TenantMeters createMeters(String tenant) {
+        AtomicInteger activeSessions = new AtomicInteger();
+        Gauge.builder("zylo.chat.sessions.active", activeSessions, AtomicInteger::get)
+                .tag("tenant", tenant)
+                .register(registry);
+        return new TenantMeters(
+                timer("zylo.chat.ingress", tenant, null),
+                timer("zylo.chat.queue.dwell", tenant, null),
+                timer("zylo.chat.route.lookup", tenant, null),
+                timer("zylo.chat.socket.send", tenant, LOCAL),
+                timer("zylo.chat.socket.send", tenant, REDIS),
+                counter("zylo.chat.delivered", tenant, LOCAL),
+                counter("zylo.chat.delivered", tenant, REDIS),
+                Counter.builder("zylo.chat.forwarded").tag("tenant", tenant).register(registry),
+                activeSessions);
+    }
+
+    private Timer timer(String name, String tenant, String path) {
+        Timer.Builder builder = Timer.builder(name).tag("tenant", tenant);
+        if (path != null) {
+            builder.tag("path", path);
+        }
+        return builder.register(registry);
+    }
+
+    private Counter counter(String name, String tenant, String path) {
+        return Counter.builder(name).tag("tenant", tenant).tag("path", path).register(registry);
+    }
+
+    private record TenantMeters(Timer ingress, Timer queueDwell, Timer routeLookup, Timer localSend, Timer redisSend,
+                                Counter deliveredLocal, Counter deliveredRedis, Counter forwarded,
+                                AtomicInteger activeSessions) {
+    }
+}
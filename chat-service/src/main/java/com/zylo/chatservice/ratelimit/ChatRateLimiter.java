@@ -0,0 +1,157 @@
+package com.zylo.chatservice.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user and per-tenant ingress limits. Decisions are made locally against lock-free
+ * buckets; every sync interval each node adds what it admitted to a per-window Redis counter
+ * and charges its local buckets with what the other nodes admitted in the same window. The
+ * cluster-wide rate therefore converges on the limit within about one interval.
+ */
+@Component
+public class ChatRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatRateLimiter.class);
+
+    public static final String USER = "user";
+    public static final String TENANT = "tenant";
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${zylo.chat.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zylo.chat.rate-limit.user.per-second:20}")
+    private double userPerSecond;
+
+    @Value("${zylo.chat.rate-limit.user.burst:40}")
+    private int userBurst;
+
+    @Value("${zylo.chat.rate-limit.tenant.per-second:2000}")
+    private double tenantPerSecond;
+
+    @Value("${zylo.chat.rate-limit.tenant.burst:4000}")
+    private int tenantBurst;
+
+    @Value("${zylo.chat.rate-limit.action:REJECT}")
+    private RateLimitAction action;
+
+    @Value("${zylo.chat.rate-limit.sync-interval-ms:1000}")
+    private long syncIntervalMs;
+
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> tenantBuckets = new ConcurrentHashMap<>();
+
+    // retryAfterNanos: for a rejected frame, until the limiting bucket has a token again
+    public record Decision(boolean allowed, long retryAfterNanos, String scope) {
+        static final Decision ALLOWED = new Decision(true, 0, null);
+    }
+
+    public RateLimitAction getAction() {
+        return action;
+    }
+
+    public Decision acquire(String userId, String tenantId) {
+        if (!enabled) {
+            return Decision.ALLOWED;
+        }
+        long now = System.nanoTime();
+
+        TokenBucket user = userBuckets.computeIfAbsent(userId, id -> new TokenBucket(userPerSecond, userBurst));
+        if (!user.tryAcquire(now)) {
+            return new Decision(false, user.retryAfterNanos(now), USER);
+        }
+        if (tenantId == null) {
+            return Decision.ALLOWED;
+        }
+        TokenBucket tenant = tenantBuckets.computeIfAbsent(tenantId, id -> new TokenBucket(tenantPerSecond, tenantBurst));
+        if (!tenant.tryAcquire(now)) {
+            user.refund();
+            return new Decision(false, tenant.retryAfterNanos(now), TENANT);
+        }
+        return Decision.ALLOWED;
+    }
+
+    @Scheduled(fixedDelayString = "${zylo.chat.rate-limit.sync-interval-ms:1000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long window = System.currentTimeMillis() / syncIntervalMs;
+        List<String> keys = new ArrayList<>();
+        List<TokenBucket> buckets = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        collect(USER, userBuckets, window, now, keys, buckets, deltas);
+        collect(TENANT, tenantBuckets, window, now, keys, buckets, deltas);
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<Object> totals;
+        try {
+            long ttlSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(syncIntervalMs * 2));
+            totals = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                for (int i = 0; i < keys.size(); i++) {
+                    redis.incrBy(keys.get(i), deltas.get(i));
+                    redis.expire(keys.get(i), ttlSeconds);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // Redis down: keep enforcing the local limits only
+            log.debug("Rate limit sync failed: {}", e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < buckets.size(); i++) {
+            TokenBucket bucket = buckets.get(i);
+            long total = ((Number) totals.get(i * 2)).longValue();
+            long remote = total - bucket.ownInWindow;
+            bucket.debit(remote - bucket.remoteInWindow, now);
+            bucket.remoteInWindow = Math.max(bucket.remoteInWindow, remote);
+        }
+    }
+
+    private void collect(String scope, Map<String, TokenBucket> source, long window, long now,
+                         List<String> keys, List<TokenBucket> buckets, List<Long> deltas) {
+        for (Map.Entry<String, TokenBucket> entry : source.entrySet()) {
+            TokenBucket bucket = entry.getValue();
+            if (bucket.isIdle(now)) {
+                source.remove(entry.getKey(), bucket);
+                continue;
+            }
+            long delta = bucket.unsynced.getAndSet(0);
+            if (delta <= 0) {
+                continue;
+            }
+            if (bucket.window != window) {
+                bucket.window = window;
+                bucket.ownInWindow = 0;
+                bucket.remoteInWindow = 0;
+            }
+            bucket.ownInWindow += delta;
+            keys.add(KEY_PREFIX + scope + ":" + entry.getKey() + ":" + window);
+            buckets.add(bucket);
+            deltas.add(delta);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.zylo.chatservice.ratelimit;
+
+// What ChatWebSocketHandler does with a frame over the limit (zylo.chat.rate-limit.action)
+public enum RateLimitAction {
+    // drop the frame and answer with a rate_limited error frame
+    REJECT,
+    // drop the frame and answer with a rate_limited frame carrying retryAfterMs, so the client
+    // holds and resends it; the server never parks the session's read thread
+    DELAY,
+    // close the session with 1008 (policy violation)
+    DISCONNECT
+}
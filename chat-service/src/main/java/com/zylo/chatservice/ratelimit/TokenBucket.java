@@ -0,0 +1,70 @@
+package com.zylo.chatservice.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its GCRA form: the whole state is one "theoretical arrival time"
+ * in nanos, updated by CAS. A request is admitted when the bucket would not overflow; a
+ * rejected caller can ask how long until the next token is free.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    // starts full: a theoretical arrival time of "now"
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    // acquisitions since the last Redis sync
+    final AtomicLong unsynced = new AtomicLong();
+    // cluster window bookkeeping, only touched by the sync task
+    long window;
+    long ownInWindow;
+    long remoteInWindow;
+
+    TokenBucket(double perSecond, int burst) {
+        this.intervalNanos = (long) (1_000_000_000L / perSecond);
+        this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            if (wait(tat, nowNanos) > 0) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, Math.max(tat, nowNanos) + intervalNanos)) {
+                unsynced.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    // Until tryAcquire would next succeed, 0 when a token is free now
+    long retryAfterNanos(long nowNanos) {
+        return Math.max(0, wait(theoreticalArrival.get(), nowNanos));
+    }
+
+    private long wait(long tat, long nowNanos) {
+        return Math.max(tat, nowNanos) - nowNanos - burstNanos;
+    }
+
+    // Gives back a token taken by acquire, when a later check rejected the request anyway
+    void refund() {
+        theoreticalArrival.addAndGet(-intervalNanos);
+        unsynced.decrementAndGet();
+    }
+
+    // Charges tokens spent on other nodes, at most down to an empty bucket
+    void debit(long tokens, long nowNanos) {
+        if (tokens <= 0) {
+            return;
+        }
+        long ceiling = nowNanos + burstNanos + intervalNanos;
+        theoreticalArrival.accumulateAndGet(nowNanos,
+                (tat, now) -> Math.max(tat, Math.min(ceiling, Math.max(tat, now) + tokens * intervalNanos)));
+    }
+
+    // Full again and nothing left to report
+    boolean isIdle(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos && unsynced.get() == 0;
+    }
+}
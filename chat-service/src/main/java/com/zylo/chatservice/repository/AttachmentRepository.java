@@ -0,0 +1,119 @@
+package com.zylo.chatservice.repository;
+
+import com.zylo.chatservice.entity.AttachmentBlob;
+import com.zylo.chatservice.entity.AttachmentUpload;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Transactional
+@Repository
+public class AttachmentRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public AttachmentUpload saveUpload(AttachmentUpload upload) {
+        if (upload.getId() == null) {
+            entityManager.persist(upload);
+            return upload;
+        }
+        return entityManager.merge(upload);
+    }
+
+    public AttachmentUpload getUpload(UUID tenantId, UUID uploadId) {
+        AttachmentUpload upload = entityManager.find(AttachmentUpload.class, uploadId);
+        return upload != null && upload.getTenantId().equals(tenantId) && upload.getDeletedAt() == null ? upload : null;
+    }
+
+    // Includes soft-deleted rows, so an upload whose staged file could not be removed is retried
+    public List<AttachmentUpload> getStaleUploads(LocalDateTime createdBefore, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AttachmentUpload> query = cb.createQuery(AttachmentUpload.class);
+        Root<AttachmentUpload> upload = query.from(AttachmentUpload.class);
+        query.where(cb.equal(upload.get("status"), AttachmentUpload.UPLOADING),
+                        cb.lessThan(upload.get("createdAt"), createdBefore))
+                .orderBy(cb.asc(upload.get("createdAt")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // Only while still unfinished; returns false if the upload completed in the meantime
+    public boolean markUploadDeleted(UUID uploadId) {
+        return entityManager.createQuery("""
+                        UPDATE AttachmentUpload u SET u.deletedAt = :now
+                        WHERE u.id = :id AND u.status = :status
+                        """)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", uploadId)
+                .setParameter("status", AttachmentUpload.UPLOADING)
+                .executeUpdate() == 1;
+    }
+
+    public void deleteUpload(UUID uploadId) {
+        entityManager.createQuery("DELETE FROM AttachmentUpload u WHERE u.id = :id AND u.status = :status")
+                .setParameter("id", uploadId)
+                .setParameter("status", AttachmentUpload.UPLOADING)
+                .executeUpdate();
+    }
+
+    public AttachmentBlob getBlob(UUID tenantId, UUID blobId) {
+        AttachmentBlob blob = entityManager.find(AttachmentBlob.class, blobId);
+        return blob != null && blob.getTenantId().equals(tenantId) && blob.getDeletedAt() == null ? blob : null;
+    }
+
+    public AttachmentBlob getBlobByHash(UUID tenantId, String sha256) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AttachmentBlob> query = cb.createQuery(AttachmentBlob.class);
+        Root<AttachmentBlob> blob = query.from(AttachmentBlob.class);
+        query.where(cb.equal(blob.get("tenantId"), tenantId), cb.equal(blob.get("sha256"), sha256));
+        return entityManager.createQuery(query).getResultStream().findFirst().orElse(null);
+    }
+
+    // The uploader of the content, or a member of a channel where it was posted
+    public boolean canRead(UUID tenantId, UUID blobId, UUID userId) {
+        Object result = entityManager.createNativeQuery("""
+                        SELECT EXISTS (
+                            SELECT 1 FROM attachment_uploads u
+                            WHERE u.tenant_id = :tenantId AND u.blob_id = :blobId AND u.uploaded_by = :userId
+                              AND u.deleted_at IS NULL
+                        ) OR EXISTS (
+                            SELECT 1 FROM attachments a
+                            JOIN messages m ON m.id = a.message_id AND m.tenant_id = a.tenant_id
+                            JOIN channel_members cm ON cm.channel_id = m.channel_id AND cm.user_id = :userId
+                            WHERE a.tenant_id = :tenantId AND a.blob_id = :blobId
+                              AND a.deleted_at IS NULL AND m.deleted_at IS NULL
+                        )
+                        """)
+                .setParameter("tenantId", tenantId)
+                .setParameter("blobId", blobId)
+                .setParameter("userId", userId)
+                .getSingleResult();
+        return Boolean.TRUE.equals(result);
+    }
+
+    // Concurrent completions of the same content race on (tenant_id, sha256); the loser reuses the winner's row
+    public AttachmentBlob saveBlobIfAbsent(AttachmentBlob blob) {
+        int inserted = entityManager.createNativeQuery("""
+                        INSERT INTO attachment_blobs (id, tenant_id, sha256, size_bytes, content_type, storage_key, created_at)
+                        VALUES (:id, :tenantId, :sha256, :size, :contentType, :storageKey, :createdAt)
+                        ON CONFLICT (tenant_id, sha256) DO NOTHING
+                        """)
+                .setParameter("id", blob.getId())
+                .setParameter("tenantId", blob.getTenantId())
+                .setParameter("sha256", blob.getSha256())
+                .setParameter("size", blob.getSizeBytes())
+                .setParameter("contentType", blob.getContentType())
+                .setParameter("storageKey", blob.getStorageKey())
+                .setParameter("createdAt", blob.getCreatedAt())
+                .executeUpdate();
+        return inserted == 1 ? blob : getBlobByHash(blob.getTenantId(), blob.getSha256());
+    }
+}
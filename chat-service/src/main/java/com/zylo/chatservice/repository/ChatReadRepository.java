@@ -0,0 +1,148 @@
+package com.zylo.chatservice.repository;
+
+import com.zylo.authservice.entity.User;
+import com.zylo.chatservice.dto.ChannelMemberView;
+import com.zylo.chatservice.dto.ChannelView;
+import com.zylo.chatservice.dto.MessageView;
+import com.zylo.chatservice.entity.Channel;
+import com.zylo.chatservice.entity.ChannelMember;
+import com.zylo.chatservice.entity.Message;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Projection queries for the hot chat reads. Each method is exactly one SQL statement:
+ * only the columns the view needs are selected, and foreign keys are read off the owning
+ * row (x.channel.id) instead of initialising the lazy association.
+ */
+@Transactional
+@Repository
+public class ChatReadRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Newest first; pass the createdAt and id of the oldest loaded message as 'before'/'beforeId' to page back
+    public List<MessageView> getChannelMessages(UUID tenantId, UUID channelId, LocalDateTime before, UUID beforeId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MessageView> query = cb.createQuery(MessageView.class);
+        Root<Message> message = query.from(Message.class);
+        selectMessageView(cb, query, message);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(message.get("tenant").get("id"), tenantId));
+        predicates.add(cb.equal(message.get("channel").get("id"), channelId));
+        predicates.add(cb.isNull(message.get("deletedAt")));
+        if (before != null) {
+            Predicate older = cb.lessThan(message.get("createdAt"), before);
+            if (beforeId != null) {
+                // (createdAt, id) keyset: messages sharing the cursor's timestamp are not skipped
+                older = cb.or(older, cb.and(cb.equal(message.get("createdAt"), before), cb.lessThan(message.get("id"), beforeId)));
+            }
+            predicates.add(older);
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(message.get("createdAt")), cb.desc(message.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // Oldest first, (after, upTo]; feeds the cold-tier archiver one segment at a time
+    public List<MessageView> getChannelMessagesForArchive(UUID tenantId, UUID channelId, LocalDateTime after,
+                                                          LocalDateTime upTo, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MessageView> query = cb.createQuery(MessageView.class);
+        Root<Message> message = query.from(Message.class);
+        selectMessageView(cb, query, message);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(message.get("tenant").get("id"), tenantId));
+        predicates.add(cb.equal(message.get("channel").get("id"), channelId));
+        predicates.add(cb.isNull(message.get("deletedAt")));
+        predicates.add(cb.lessThanOrEqualTo(message.get("createdAt"), upTo));
+        if (after != null) {
+            predicates.add(cb.greaterThan(message.get("createdAt"), after));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.asc(message.get("createdAt")), cb.asc(message.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    public List<ChannelView> getChannels(UUID tenantId, boolean includeArchived) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ChannelView> query = cb.createQuery(ChannelView.class);
+        Root<Channel> channel = query.from(Channel.class);
+        query.select(cb.construct(ChannelView.class,
+                channel.get("id"),
+                channel.get("name"),
+                channel.get("type"),
+                channel.get("description"),
+                channel.get("isArchived"),
+                channel.get("createdAt")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(channel.get("tenant").get("id"), tenantId));
+        predicates.add(cb.isNull(channel.get("deletedAt")));
+        if (!includeArchived) {
+            predicates.add(cb.isFalse(channel.get("isArchived")));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.asc(channel.get("name")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    public List<ChannelMemberView> getChannelMembers(UUID channelId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ChannelMemberView> query = cb.createQuery(ChannelMemberView.class);
+        Root<ChannelMember> member = query.from(ChannelMember.class);
+        Join<ChannelMember, User> user = member.join("user", JoinType.INNER);
+        query.select(cb.construct(ChannelMemberView.class,
+                user.get("id"),
+                user.get("username"),
+                user.get("firstName"),
+                user.get("lastName"),
+                user.get("avatarUrl"),
+                member.get("role"),
+                member.get("joinedAt")));
+        query.where(cb.equal(member.get("id").get("channelId"), channelId));
+        query.orderBy(cb.asc(user.get("username")));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    public boolean isChannelMember(UUID channelId, UUID userId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<ChannelMember> member = query.from(ChannelMember.class);
+        query.select(cb.count(member));
+        query.where(cb.equal(member.get("id").get("channelId"), channelId),
+                cb.equal(member.get("id").get("userId"), userId));
+        return entityManager.createQuery(query).getSingleResult() > 0;
+    }
+
+    private static void selectMessageView(CriteriaBuilder cb, CriteriaQuery<MessageView> query, Root<Message> message) {
+        Join<Message, User> author = message.join("user");
+        query.select(cb.construct(MessageView.class,
+                message.get("id"),
+                message.get("channel").get("id"),
+                message.get("thread").get("id"),
+                message.get("parent").get("id"),
+                author.get("id"),
+                author.get("username"),
+                message.get("content"),
+                message.get("type"),
+                message.get("createdAt"),
+                message.get("editedAt")));
+    }
+}
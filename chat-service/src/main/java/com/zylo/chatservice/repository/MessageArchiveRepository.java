@@ -0,0 +1,135 @@
+package com.zylo.chatservice.repository;
+
+import com.zylo.chatservice.dto.MessageView;
+import com.zylo.common.id.UuidV7;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Bookkeeping for the cold-tier segments written by MessageArchive
+@Transactional
+@Repository
+public class MessageArchiveRepository {
+
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public record ChannelKey(UUID tenantId, UUID channelId) {
+    }
+
+    public record SegmentRef(String path, LocalDateTime firstCreatedAt, LocalDateTime lastCreatedAt) {
+    }
+
+    // Channels with archivable rows: live, older than the cutoff and newer than the channel's watermark.
+    // Deleted rows and late rows below the watermark are never archived, so they must not take up the limit.
+    @SuppressWarnings("unchecked")
+    public List<ChannelKey> getChannelsWithMessagesBefore(LocalDateTime cutoff, int limit) {
+        List<Object[]> rows = entityManager.createNativeQuery("""
+                        SELECT DISTINCT m.tenant_id, m.channel_id FROM messages m
+                         WHERE m.created_at < :cutoff
+                           AND m.deleted_at IS NULL
+                           AND m.created_at > COALESCE((SELECT max(s.last_created_at) FROM message_archive_segments s
+                                                         WHERE s.tenant_id = m.tenant_id AND s.channel_id = m.channel_id),
+                                                       '-infinity'::timestamp)
+                         LIMIT :limit
+                        """)
+                .setParameter("cutoff", cutoff)
+                .setParameter("limit", limit)
+                .getResultList();
+        List<ChannelKey> channels = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            channels.add(new ChannelKey((UUID) row[0], (UUID) row[1]));
+        }
+        return channels;
+    }
+
+    public LocalDateTime getWatermark(UUID tenantId, UUID channelId) {
+        return (LocalDateTime) entityManager.createNativeQuery("""
+                        SELECT max(last_created_at) FROM message_archive_segments
+                         WHERE tenant_id = :tenantId AND channel_id = :channelId
+                        """, LocalDateTime.class)
+                .setParameter("tenantId", tenantId)
+                .setParameter("channelId", channelId)
+                .getSingleResult();
+    }
+
+    // Newest segment first; only segments that can hold messages before the 'before' cursor (null for all)
+    @SuppressWarnings("unchecked")
+    public List<SegmentRef> getSegments(UUID tenantId, UUID channelId, LocalDateTime before) {
+        Query query = entityManager.createNativeQuery("""
+                        SELECT path, first_created_at, last_created_at FROM message_archive_segments
+                         WHERE tenant_id = :tenantId AND channel_id = :channelId
+                        """ + (before != null ? " AND first_created_at <= :before" : "") + """
+                         ORDER BY last_created_at DESC
+                        """)
+                .setParameter("tenantId", tenantId)
+                .setParameter("channelId", channelId);
+        if (before != null) {
+            query.setParameter("before", before);
+        }
+        List<Object[]> rows = query.getResultList();
+        List<SegmentRef> segments = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            segments.add(new SegmentRef((String) row[0], toLocalDateTime(row[1]), toLocalDateTime(row[2])));
+        }
+        return segments;
+    }
+
+    // Records the segment and drops the hot rows it holds in one transaction
+    public int recordSegment(UUID tenantId, UUID channelId, String path, List<MessageView> messages, long sizeBytes) {
+        LocalDateTime firstCreatedAt = messages.get(0).createdAt();
+        LocalDateTime lastCreatedAt = messages.get(messages.size() - 1).createdAt();
+        entityManager.createNativeQuery("""
+                        INSERT INTO message_archive_segments
+                            (id, tenant_id, channel_id, path, first_created_at, last_created_at, message_count, size_bytes)
+                        VALUES (:id, :tenantId, :channelId, :path, :first, :last, :count, :size)
+                        ON CONFLICT (path) DO NOTHING
+                        """)
+                .setParameter("id", UuidV7.next())
+                .setParameter("tenantId", tenantId)
+                .setParameter("channelId", channelId)
+                .setParameter("path", path)
+                .setParameter("first", firstCreatedAt)
+                .setParameter("last", lastCreatedAt)
+                .setParameter("count", messages.size())
+                .setParameter("size", sizeBytes)
+                .executeUpdate();
+        int deleted = 0;
+        for (int from = 0; from < messages.size(); from += DELETE_BATCH_SIZE) {
+            List<UUID> ids = messages.subList(from, Math.min(from + DELETE_BATCH_SIZE, messages.size())).stream()
+                    .map(MessageView::id)
+                    .toList();
+            deleted += deleteArchivedMessages(tenantId, channelId, firstCreatedAt, lastCreatedAt, ids);
+        }
+        return deleted;
+    }
+
+    // Only rows that went into the segment; a row arriving late inside the range stays hot
+    private int deleteArchivedMessages(UUID tenantId, UUID channelId, LocalDateTime from, LocalDateTime upTo, List<UUID> ids) {
+        return entityManager.createNativeQuery("""
+                        DELETE FROM messages
+                         WHERE tenant_id = :tenantId AND channel_id = :channelId
+                           AND created_at BETWEEN :from AND :upTo
+                           AND id IN (:ids)
+                        """)
+                .setParameter("tenantId", tenantId)
+                .setParameter("channelId", channelId)
+                .setParameter("from", from)
+                .setParameter("upTo", upTo)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof java.sql.Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,77 @@
+package com.zylo.chatservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+// Thin wrappers over the partition management functions from the messages-partitioning migration
+@Transactional
+@Repository
+public class MessageMaintenanceRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public void ensurePartitions(int monthsAhead, int tenantBuckets) {
+        // count(*) because a bare void result has no JDBC type mapping
+        entityManager.createNativeQuery("SELECT count(*) FROM zylo_ensure_message_partitions(:monthsAhead, :tenantBuckets)")
+                .setParameter("monthsAhead", monthsAhead)
+                .setParameter("tenantBuckets", tenantBuckets)
+                .getSingleResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> dropPartitionsBefore(LocalDateTime cutoff, boolean detachOnly) {
+        return entityManager.createNativeQuery("SELECT * FROM zylo_drop_message_partitions_before(:cutoff, :detachOnly)")
+                .setParameter("cutoff", cutoff)
+                .setParameter("detachOnly", detachOnly)
+                .getResultList();
+    }
+
+    // Rebuilds month partitions past the cutoff with only the given tenants' rows; returns the rebuilt leaves
+    @SuppressWarnings("unchecked")
+    public List<String> compactPartitionsBefore(LocalDateTime cutoff, Collection<UUID> keepTenants, boolean detachOnly) {
+        String keep = keepTenants.stream().map(UUID::toString).collect(Collectors.joining(","));
+        return entityManager.createNativeQuery(
+                        "SELECT * FROM zylo_compact_message_partitions_before(:cutoff, string_to_array(:keep, ',')::uuid[], :detachOnly)")
+                .setParameter("cutoff", cutoff)
+                .setParameter("keep", keep)
+                .setParameter("detachOnly", detachOnly)
+                .getResultList();
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<UUID, Integer> getRetentionPolicies() {
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT tenant_id, retention_days FROM message_retention_policies")
+                .getResultList();
+        Map<UUID, Integer> policies = new HashMap<>();
+        for (Object[] row : rows) {
+            policies.put((UUID) row[0], ((Number) row[1]).intValue());
+        }
+        return policies;
+    }
+
+    // One bounded batch; the created_at bound prunes the scan to the expired partitions only
+    public int deleteExpiredBatch(UUID tenantId, LocalDateTime cutoff, int batchSize) {
+        return entityManager.createNativeQuery("""
+                        DELETE FROM messages
+                         WHERE (id, created_at, tenant_id) IN (
+                               SELECT id, created_at, tenant_id FROM messages
+                                WHERE tenant_id = :tenantId AND created_at < :cutoff
+                                LIMIT :batchSize)
+                        """)
+                .setParameter("tenantId", tenantId)
+                .setParameter("cutoff", cutoff)
+                .setParameter("batchSize", batchSize)
+                .executeUpdate();
+    }
+}
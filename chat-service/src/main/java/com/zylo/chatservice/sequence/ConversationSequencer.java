@@ -0,0 +1,41 @@
+package com.zylo.chatservice.sequence;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Server-assigned sequence numbers per conversation: one INCR of seq:&lt;conversation&gt; per message.
+ * <p>
+ * Numbers are not reserved in ranges. A shard can change nodes without the old consumer being told
+ * (a higher-priority single-active-consumer takes over silently), so a range cached on one node can
+ * never be trusted without asking Redis, which costs as much as the INCR itself.
+ * <p>
+ * Numbers are unique and gap-free per conversation whichever node issues them, and in delivery
+ * order while a single node sequences a given conversation.
+ */
+@Component
+public class ConversationSequencer {
+
+    private static final String KEY_PREFIX = "seq:";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    public static String directConversationId(String userA, String userB) {
+        return userA.compareTo(userB) <= 0 ? "d:" + userA + ":" + userB : "d:" + userB + ":" + userA;
+    }
+
+    public static String channelConversationId(String channelId) {
+        return "c:" + channelId;
+    }
+
+    // Next number for the conversation; throws when Redis is unavailable
+    public long next(String conversationId) {
+        Long seq = redisTemplate.opsForValue().increment(KEY_PREFIX + conversationId);
+        if (seq == null) {
+            throw new IllegalStateException("No sequence number for conversation " + conversationId);
+        }
+        return seq;
+    }
+}
@@ -0,0 +1,171 @@
+package com.zylo.chatservice.service;
+
+import com.zylo.authservice.exception.InsufficientInfoException;
+import com.zylo.authservice.exception.ResourceNotFoundException;
+import com.zylo.chatservice.dto.UploadSessionRequest;
+import com.zylo.chatservice.dto.UploadSessionResponse;
+import com.zylo.chatservice.entity.AttachmentBlob;
+import com.zylo.chatservice.entity.AttachmentUpload;
+import com.zylo.chatservice.repository.AttachmentRepository;
+import com.zylo.chatservice.storage.BlobStore;
+import com.zylo.common.id.UuidV7;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Resumable, content-addressed attachment uploads. Chunks are streamed straight into the
+ * blob store; on completion the staged bytes are hashed and either committed as a new blob
+ * or dropped in favour of the tenant's existing copy of the same content. Deduplication only
+ * ever happens on a hash the server computed itself, so a client cannot claim content it
+ * does not hold.
+ */
+@Service
+public class AttachmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(AttachmentService.class);
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Value("${zylo.attachments.max-size-bytes:1073741824}")
+    private long maxSizeBytes;
+
+    // 0 disables the cleanup
+    @Value("${zylo.attachments.stale-upload-hours:24}")
+    private long staleUploadHours;
+
+    @Value("${zylo.attachments.cleanup-batch-size:500}")
+    private int cleanupBatchSize;
+
+    public UploadSessionResponse startUpload(UUID tenantId, UUID userId, UploadSessionRequest request) {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new InsufficientInfoException("fileName");
+        }
+        if (request.getSize() < 0 || request.getSize() > maxSizeBytes) {
+            throw new IllegalArgumentException("File size must be between 0 and " + maxSizeBytes + " bytes");
+        }
+        AttachmentUpload upload = new AttachmentUpload();
+        upload.setTenantId(tenantId);
+        upload.setUploadedBy(userId);
+        upload.setFileName(request.getFileName());
+        upload.setContentType(request.getContentType());
+        upload.setTotalSize(request.getSize());
+        attachmentRepository.saveUpload(upload);
+        return UploadSessionResponse.getUploadResponse(upload, 0);
+    }
+
+    public UploadSessionResponse getUpload(UUID tenantId, UUID userId, UUID uploadId) throws IOException {
+        AttachmentUpload upload = findUpload(tenantId, userId, uploadId);
+        return UploadSessionResponse.getUploadResponse(upload, receivedBytes(upload));
+    }
+
+    // The store holds an exclusive lock on the staged file from its offset check through the write,
+    // so a chunk at a stale offset, or one racing another writer, is rejected rather than interleaved
+    public UploadSessionResponse appendChunk(UUID tenantId, UUID userId, UUID uploadId, long offset, InputStream data) throws IOException {
+        AttachmentUpload upload = findUpload(tenantId, userId, uploadId);
+        if (AttachmentUpload.COMPLETED.equals(upload.getStatus())) {
+            return UploadSessionResponse.getUploadResponse(upload, upload.getTotalSize());
+        }
+        long received = blobStore.append(upload.getId().toString(), offset, data, upload.getTotalSize());
+        return UploadSessionResponse.getUploadResponse(upload, received);
+    }
+
+    public UploadSessionResponse completeUpload(UUID tenantId, UUID userId, UUID uploadId) throws IOException {
+        AttachmentUpload upload = findUpload(tenantId, userId, uploadId);
+        if (AttachmentUpload.COMPLETED.equals(upload.getStatus())) {
+            return UploadSessionResponse.getUploadResponse(upload, upload.getTotalSize());
+        }
+        String uploadKey = upload.getId().toString();
+        long received = blobStore.stagedSize(uploadKey);
+        if (received != upload.getTotalSize()) {
+            throw new InsufficientInfoException("Upload has " + received + " of " + upload.getTotalSize() + " bytes");
+        }
+
+        String sha256 = blobStore.hashStaged(uploadKey);
+        AttachmentBlob blob = attachmentRepository.getBlobByHash(tenantId, sha256);
+        if (blob != null) {
+            blobStore.discard(uploadKey);
+        } else {
+            blob = new AttachmentBlob();
+            blob.setId(UuidV7.next());
+            blob.setTenantId(tenantId);
+            blob.setSha256(sha256);
+            blob.setSizeBytes(received);
+            blob.setContentType(upload.getContentType());
+            blob.setStorageKey(tenantId + "/" + sha256.substring(0, 2) + "/" + sha256);
+            blobStore.commit(uploadKey, blob.getStorageKey());
+            blob = attachmentRepository.saveBlobIfAbsent(blob);
+        }
+
+        upload.setStatus(AttachmentUpload.COMPLETED);
+        upload.setBlobId(blob.getId());
+        attachmentRepository.saveUpload(upload);
+        return UploadSessionResponse.getUploadResponse(upload, received);
+    }
+
+    // Uploads never completed within stale-upload-hours of creation: hidden first, so no new chunk can land, then file and row are removed
+    @Scheduled(cron = "${zylo.attachments.cleanup-cron:0 30 * * * *}")
+    public void discardStaleUploads() {
+        if (staleUploadHours <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(staleUploadHours);
+        for (AttachmentUpload upload : attachmentRepository.getStaleUploads(cutoff, cleanupBatchSize)) {
+            try {
+                if (upload.getDeletedAt() == null && !attachmentRepository.markUploadDeleted(upload.getId())) {
+                    continue;
+                }
+                blobStore.discard(upload.getId().toString());
+                attachmentRepository.deleteUpload(upload.getId());
+            } catch (Exception e) {
+                log.warn("Discarding stale upload {} failed: {}", upload.getId(), e.getMessage());
+            }
+        }
+    }
+
+    // Not found rather than forbidden, so blob ids cannot be probed
+    public AttachmentBlob getBlob(UUID tenantId, UUID userId, UUID blobId) {
+        AttachmentBlob blob = attachmentRepository.getBlob(tenantId, blobId);
+        if (blob == null || !attachmentRepository.canRead(tenantId, blobId, userId)) {
+            throw new ResourceNotFoundException("Attachment " + blobId);
+        }
+        return blob;
+    }
+
+    public long transferTo(AttachmentBlob blob, long position, long count, WritableByteChannel target) throws IOException {
+        return blobStore.transferTo(blob.getStorageKey(), position, count, target);
+    }
+
+    public Optional<Path> localPath(AttachmentBlob blob) {
+        return blobStore.localPath(blob.getStorageKey());
+    }
+
+    private AttachmentUpload findUpload(UUID tenantId, UUID userId, UUID uploadId) {
+        AttachmentUpload upload = attachmentRepository.getUpload(tenantId, uploadId);
+        if (upload == null || !userId.equals(upload.getUploadedBy())) {
+            throw new ResourceNotFoundException("Upload " + uploadId);
+        }
+        return upload;
+    }
+
+    private long receivedBytes(AttachmentUpload upload) throws IOException {
+        return AttachmentUpload.COMPLETED.equals(upload.getStatus())
+                ? upload.getTotalSize()
+                : blobStore.stagedSize(upload.getId().toString());
+    }
+}
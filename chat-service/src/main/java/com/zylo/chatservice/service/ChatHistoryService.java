@@ -0,0 +1,55 @@
+package com.zylo.chatservice.service;
+
+import com.zylo.chatservice.archive.MessageArchive;
+import com.zylo.chatservice.dto.MessageView;
+import com.zylo.chatservice.repository.ChatReadRepository;
+import com.zylo.chatservice.repository.MessageArchiveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Channel history across both tiers: hot rows from Postgres merged with the archive segments
+@Service
+public class ChatHistoryService {
+
+    @Autowired
+    private ChatReadRepository chatReadRepository;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private MessageArchiveRepository messageArchiveRepository;
+
+    // Newest first, merged from both tiers by (createdAt, id). A row that arrived late inside an archived
+    // range stays hot, so the tiers can overlap in time; the archive is skipped only when a full hot page
+    // is entirely newer than the channel's watermark.
+    public List<MessageView> getChannelMessages(UUID tenantId, UUID channelId, LocalDateTime before, UUID beforeId, int limit) {
+        List<MessageView> hot = chatReadRepository.getChannelMessages(tenantId, channelId, before, beforeId, limit);
+        if (hot.size() >= limit) {
+            LocalDateTime watermark = messageArchiveRepository.getWatermark(tenantId, channelId);
+            if (watermark == null || hot.get(hot.size() - 1).createdAt().isAfter(watermark)) {
+                return hot;
+            }
+        }
+        List<MessageView> cold = messageArchive.read(tenantId, channelId, before, beforeId, limit);
+        if (cold.isEmpty()) {
+            return hot;
+        }
+        List<MessageView> messages = new ArrayList<>(limit);
+        int h = 0;
+        int c = 0;
+        while (messages.size() < limit && (h < hot.size() || c < cold.size())) {
+            if (c == cold.size() || (h < hot.size() && MessageArchive.NEWEST_FIRST.compare(hot.get(h), cold.get(c)) <= 0)) {
+                messages.add(hot.get(h++));
+            } else {
+                messages.add(cold.get(c++));
+            }
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,134 @@
+package com.zylo.chatservice.service;
+
+import com.zylo.chatservice.archive.MessageArchive;
+import com.zylo.chatservice.dto.MessageView;
+import com.zylo.chatservice.repository.ChatReadRepository;
+import com.zylo.chatservice.repository.MessageArchiveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves channel history older than zylo.messages.archive.after-days out of Postgres into
+ * compressed segment files. Each segment is written and fsynced before the rows it covers
+ * are deleted, so a crash at any point leaves the messages readable from one tier or both.
+ * Only the exact rows written to a segment are deleted. The job runs on one node at a time,
+ * guarded by a Postgres advisory lock, and the archive dir must be shared by every node.
+ */
+@Service
+public class MessageArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageArchiveService.class);
+
+    // pg advisory lock key held by the node currently archiving
+    private static final long ARCHIVE_LOCK_KEY = 0x7a796c6f_61726368L;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private MessageArchiveRepository messageArchiveRepository;
+
+    @Autowired
+    private ChatReadRepository chatReadRepository;
+
+    // 0 disables archiving
+    @Value("${zylo.messages.archive.after-days:0}")
+    private int archiveAfterDays;
+
+    @Value("${zylo.messages.archive.segment-max-messages:50000}")
+    private int segmentMaxMessages;
+
+    @Value("${zylo.messages.archive.channels-per-run:500}")
+    private int channelsPerRun;
+
+    @Scheduled(cron = "${zylo.messages.archive.cron:0 45 3 * * *}")
+    public void archive() {
+        if (archiveAfterDays <= 0) {
+            return;
+        }
+        // Session-level lock on a dedicated connection: released on unlock, or by Postgres if this node dies
+        try (Connection connection = dataSource.getConnection()) {
+            if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                log.debug("Message archiving is running on another node");
+                return;
+            }
+            try {
+                LocalDateTime cutoff = LocalDateTime.now().minusDays(archiveAfterDays);
+                for (MessageArchiveRepository.ChannelKey channel : messageArchiveRepository.getChannelsWithMessagesBefore(cutoff, channelsPerRun)) {
+                    try {
+                        archiveChannel(channel, cutoff);
+                    } catch (Exception e) {
+                        log.warn("Archiving channel {} failed: {}", channel.channelId(), e.getMessage());
+                    }
+                }
+            } finally {
+                advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+            }
+        } catch (SQLException e) {
+            log.warn("Message archiving skipped: {}", e.getMessage());
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, ARCHIVE_LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private void archiveChannel(MessageArchiveRepository.ChannelKey channel, LocalDateTime cutoff) throws IOException {
+        LocalDateTime watermark = messageArchiveRepository.getWatermark(channel.tenantId(), channel.channelId());
+        int archived = 0;
+        while (true) {
+            List<MessageView> messages = chatReadRepository.getChannelMessagesForArchive(
+                    channel.tenantId(), channel.channelId(), watermark, cutoff, segmentMaxMessages);
+            if (messages.isEmpty()) {
+                break;
+            }
+            if (messages.size() == segmentMaxMessages) {
+                messages = trimTrailingTies(messages);
+                if (messages.isEmpty()) {
+                    log.warn("Channel {} has more than {} messages with one timestamp, not archived", channel.channelId(), segmentMaxMessages);
+                    break;
+                }
+            }
+            String path = messageArchive.writeSegment(channel.tenantId(), channel.channelId(), messages);
+            LocalDateTime last = messages.get(messages.size() - 1).createdAt();
+            messageArchiveRepository.recordSegment(channel.tenantId(), channel.channelId(), path,
+                    messages, messageArchive.size(path));
+            archived += messages.size();
+            watermark = last;
+        }
+        if (archived > 0) {
+            log.info("Archived {} messages of channel {} up to {}", archived, channel.channelId(), watermark);
+        }
+    }
+
+    // A segment must end on a timestamp boundary, since the watermark resumes with created_at > last
+    private static List<MessageView> trimTrailingTies(List<MessageView> messages) {
+        LocalDateTime last = messages.get(messages.size() - 1).createdAt();
+        int end = messages.size();
+        while (end > 0 && messages.get(end - 1).createdAt().equals(last)) {
+            end--;
+        }
+        return messages.subList(0, end);
+    }
+}
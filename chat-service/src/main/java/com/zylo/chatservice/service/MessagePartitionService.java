@@ -0,0 +1,117 @@
+package com.zylo.chatservice.service;
+
+import com.zylo.chatservice.repository.MessageMaintenanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps monthly message partitions created ahead of time and applies retention.
+ * Whole months past the longest retention in force are detached/dropped. Months past the default
+ * but held back by a longer override are rebuilt once with only the rows of the tenants that still
+ * need them, so default-policy tenants expire by the month without row deletes. Tenants with an
+ * override are trimmed to it in small batches that only touch the expired partitions.
+ */
+@Service
+public class MessagePartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(MessagePartitionService.class);
+
+    @Autowired
+    private MessageMaintenanceRepository messageMaintenanceRepository;
+
+    @Value("${zylo.messages.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${zylo.messages.partitions.tenant-hash-buckets:0}")
+    private int tenantHashBuckets;
+
+    // 0 keeps history forever unless a tenant policy says otherwise
+    @Value("${zylo.messages.retention.default-days:0}")
+    private int defaultRetentionDays;
+
+    @Value("${zylo.messages.retention.detach-only:false}")
+    private boolean detachOnly;
+
+    @Value("${zylo.messages.retention.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    @Value("${zylo.messages.retention.max-batches-per-tenant:100}")
+    private int maxBatchesPerTenant;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${zylo.messages.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        ensurePartitions();
+        applyRetention();
+    }
+
+    public void ensurePartitions() {
+        messageMaintenanceRepository.ensurePartitions(monthsAhead, tenantHashBuckets);
+    }
+
+    public void applyRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, Integer> policies = messageMaintenanceRepository.getRetentionPolicies();
+
+        if (defaultRetentionDays > 0) {
+            int horizonDays = defaultRetentionDays;
+            for (int days : policies.values()) {
+                horizonDays = Math.max(horizonDays, days);
+            }
+            List<String> removed = messageMaintenanceRepository.dropPartitionsBefore(now.minusDays(horizonDays), detachOnly);
+            if (!removed.isEmpty()) {
+                log.info("{} message partitions older than {} days: {}", detachOnly ? "Detached" : "Dropped", horizonDays, removed);
+            }
+
+            // A longer override holds those months back; keep only the tenants it applies to
+            if (horizonDays > defaultRetentionDays) {
+                List<UUID> keep = policies.entrySet().stream()
+                        .filter(policy -> policy.getValue() > defaultRetentionDays)
+                        .map(Map.Entry::getKey)
+                        .toList();
+                List<String> rebuilt = messageMaintenanceRepository.compactPartitionsBefore(
+                        now.minusDays(defaultRetentionDays), keep, detachOnly);
+                if (!rebuilt.isEmpty()) {
+                    log.info("Rebuilt message partitions older than {} days with {} long-retention tenants: {}",
+                            defaultRetentionDays, keep.size(), rebuilt);
+                }
+            }
+        }
+
+        for (Map.Entry<UUID, Integer> policy : policies.entrySet()) {
+            LocalDateTime cutoff = now.minusDays(policy.getValue());
+            int deleted = deleteInBatches(() -> messageMaintenanceRepository.deleteExpiredBatch(policy.getKey(), cutoff, deleteBatchSize));
+            if (deleted > 0) {
+                log.info("Removed {} messages older than {} days for tenant {}", deleted, policy.getValue(), policy.getKey());
+            }
+        }
+    }
+
+    private int deleteInBatches(IntSupplier batch) {
+        int deleted = 0;
+        for (int i = 0; i < maxBatchesPerTenant; i++) {
+            int count = batch.getAsInt();
+            deleted += count;
+            if (count < deleteBatchSize) {
+                break;
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,36 @@
+package com.zylo.chatservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Storage for attachment bytes. Uploads are staged under an upload key and appended to in
+ * chunks, then committed under a content-addressed blob key. Implementations stream in both
+ * directions and never hold a whole file in memory.
+ */
+public interface BlobStore {
+
+    // Appends the stream to the staged upload, which must currently be exactly 'offset' bytes long; returns the new length
+    long append(String uploadKey, long offset, InputStream data, long maxLength) throws IOException;
+
+    long stagedSize(String uploadKey) throws IOException;
+
+    // Lower-case hex SHA-256 of the staged bytes
+    String hashStaged(String uploadKey) throws IOException;
+
+    // Moves the staged bytes under blobKey; a blob already stored under that key wins
+    void commit(String uploadKey, String blobKey) throws IOException;
+
+    void discard(String uploadKey) throws IOException;
+
+    long size(String blobKey) throws IOException;
+
+    // Copies [position, position + count) of the blob to target, returns the bytes written
+    long transferTo(String blobKey, long position, long count, WritableByteChannel target) throws IOException;
+
+    // A local file for the blob when the store has one, so the container can sendfile it directly
+    Optional<Path> localPath(String blobKey);
+}
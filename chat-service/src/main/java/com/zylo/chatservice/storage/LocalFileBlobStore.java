@@ -0,0 +1,166 @@
+package com.zylo.chatservice.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Filesystem blob store: staged uploads under {@code <dir>/staging}, committed blobs under
+ * {@code <dir>/blobs/<blobKey>}. All copies go channel to channel through the kernel or a
+ * fixed-size direct buffer.
+ */
+@Component
+@ConditionalOnProperty(name = "zylo.attachments.store", havingValue = "local", matchIfMissing = true)
+public class LocalFileBlobStore implements BlobStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path staging;
+    private final Path blobs;
+
+    public LocalFileBlobStore(@Value("${zylo.attachments.dir:./data/attachments}") String dir) throws IOException {
+        Path root = Paths.get(dir).toAbsolutePath();
+        this.staging = Files.createDirectories(root.resolve("staging"));
+        this.blobs = Files.createDirectories(root.resolve("blobs"));
+    }
+
+    @Override
+    public long append(String uploadKey, long offset, InputStream data, long maxLength) throws IOException {
+        try (FileChannel file = FileChannel.open(staged(uploadKey), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(data);
+             FileLock lock = lock(file)) {
+            // Held from the offset check to the last byte, so two writers at the same offset cannot both pass
+            if (file.size() != offset) {
+                throw new IllegalStateException("Upload is at offset " + file.size() + ", not " + offset);
+            }
+            long position = offset;
+            long written;
+            // transferFrom may stop short of the requested count, so loop until the source is drained
+            while ((written = file.transferFrom(source, position, maxLength - position + 1)) > 0) {
+                position += written;
+                if (position > maxLength) {
+                    file.truncate(offset);
+                    throw new IllegalArgumentException("Upload exceeds its declared size of " + maxLength + " bytes");
+                }
+            }
+            file.force(false);
+            return position;
+        }
+    }
+
+    @Override
+    public long stagedSize(String uploadKey) throws IOException {
+        Path path = staged(uploadKey);
+        return Files.exists(path) ? Files.size(path) : 0;
+    }
+
+    @Override
+    public String hashStaged(String uploadKey) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel file = FileChannel.open(staged(uploadKey), StandardOpenOption.READ)) {
+            while (file.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public void commit(String uploadKey, String blobKey) throws IOException {
+        Path target = blob(blobKey);
+        if (Files.exists(target)) {
+            // same key means same content, keep the existing file
+            discard(uploadKey);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(staged(uploadKey), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void discard(String uploadKey) throws IOException {
+        Files.deleteIfExists(staged(uploadKey));
+    }
+
+    @Override
+    public long size(String blobKey) throws IOException {
+        return Files.size(blob(blobKey));
+    }
+
+    @Override
+    public long transferTo(String blobKey, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel file = FileChannel.open(blob(blobKey), StandardOpenOption.READ)) {
+            long sent = 0;
+            while (sent < count) {
+                long n = file.transferTo(position + sent, count - sent, target);
+                if (n <= 0) {
+                    break;
+                }
+                sent += n;
+            }
+            return sent;
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String blobKey) {
+        return Optional.of(blob(blobKey));
+    }
+
+    // Exclusive for the whole file; another request (or node, on shared storage) already writing is a conflict, not a wait
+    private static FileLock lock(FileChannel file) throws IOException {
+        FileLock lock;
+        try {
+            lock = file.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IllegalStateException("Upload is being written by another request");
+        }
+        return lock;
+    }
+
+    private Path staged(String uploadKey) {
+        return resolve(staging, uploadKey + ".part");
+    }
+
+    private Path blob(String blobKey) {
+        return resolve(blobs, blobKey);
+    }
+
+    private static Path resolve(Path base, String key) {
+        Path path = base.resolve(key).normalize();
+        if (!path.startsWith(base)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,111 @@
+package com.zylo.chatservice.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.chatservice.config.ChatWebSocketHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The last log-size sequenced events of every conversation, in a Redis sorted set scored by seq
+ * (convlog:&lt;conversation&gt;). This is what reconnecting clients are synced from; a cursor
+ * older than the oldest retained event cannot be served and has to refetch.
+ */
+@Component
+public class ConversationLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationLog.class);
+
+    private static final String KEY_PREFIX = "convlog:";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${zylo.chat.sync.log-size:1000}")
+    private int logSize;
+
+    @Value("${zylo.chat.sync.retention-hours:72}")
+    private long retentionHours;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // Events after a cursor, with the bounds of what the log still holds; empty log means 0/0
+    public record Window(long oldestSeq, long latestSeq, List<ChatWebSocketHandler.ChatMessageDTO> events) {
+    }
+
+    public void append(ChatWebSocketHandler.ChatMessageDTO message) throws JsonProcessingException {
+        String key = KEY_PREFIX + message.getConversationId();
+        String member = mapper.writeValueAsString(message);
+        long ttlSeconds = TimeUnit.HOURS.toSeconds(retentionHours);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.zAdd(key, message.getSeq(), member);
+            redis.zRemRange(key, 0, -(logSize + 1));
+            redis.expire(key, ttlSeconds);
+            return null;
+        });
+    }
+
+    // The event logged at seq, or null once it has been trimmed
+    public ChatWebSocketHandler.ChatMessageDTO get(String conversationId, long seq) {
+        String key = KEY_PREFIX + conversationId;
+        Set<String> members = redisTemplate.opsForZSet().rangeByScore(key, seq, seq, 0, 1);
+        if (members == null || members.isEmpty()) {
+            return null;
+        }
+        try {
+            return mapper.readValue(members.iterator().next(), ChatWebSocketHandler.ChatMessageDTO.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable event {} in {}: {}", seq, key, e.getMessage());
+            return null;
+        }
+    }
+
+    // Up to limit events with seq > afterSeq, ascending
+    @SuppressWarnings("unchecked")
+    public Window read(String conversationId, long afterSeq, int limit) {
+        String key = KEY_PREFIX + conversationId;
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.zRangeWithScores(key, 0, 0);
+            redis.zRevRangeWithScores(key, 0, 0);
+            redis.zRangeByScore(key, "(" + afterSeq, "+inf", 0, limit);
+            return null;
+        });
+        long oldest = score((Set<ZSetOperations.TypedTuple<String>>) results.get(0));
+        long latest = score((Set<ZSetOperations.TypedTuple<String>>) results.get(1));
+        Collection<String> members = (Collection<String>) results.get(2);
+        List<ChatWebSocketHandler.ChatMessageDTO> events = new ArrayList<>(members.size());
+        for (String member : members) {
+            try {
+                events.add(mapper.readValue(member, ChatWebSocketHandler.ChatMessageDTO.class));
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable event in {}: {}", key, e.getMessage());
+            }
+        }
+        return new Window(oldest, latest, events);
+    }
+
+    private static long score(Set<ZSetOperations.TypedTuple<String>> tuples) {
+        if (tuples == null || tuples.isEmpty()) {
+            return 0;
+        }
+        Double score = tuples.iterator().next().getScore();
+        return score != null ? score.longValue() : 0;
+    }
+}
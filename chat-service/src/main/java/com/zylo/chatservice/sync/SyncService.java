@@ -0,0 +1,147 @@
+package com.zylo.chatservice.sync;
+
+import com.zylo.chatservice.config.ChatWebSocketHandler;
+import com.zylo.chatservice.dto.SyncDelta;
+import com.zylo.chatservice.repository.ChatReadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Answers the sync frame of a reconnecting client from the conversation logs
+@Service
+public class SyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    public static final String EDIT = "edit";
+    public static final String DELETE = "delete";
+    public static final String REACTION = "reaction";
+    public static final String UNREACTION = "unreaction";
+
+    @Autowired
+    private ConversationLog conversationLog;
+
+    @Autowired
+    private ChatReadRepository chatReadRepository;
+
+    @Value("${zylo.chat.sync.max-conversations:100}")
+    private int maxConversations;
+
+    @Value("${zylo.chat.sync.max-events:500}")
+    private int maxEvents;
+
+    // userId is the Keycloak sub that direct conversation ids are built from; localUserId is users.id for membership
+    public List<SyncDelta> sync(String userId, UUID localUserId, Map<String, Long> cursors) {
+        List<SyncDelta> deltas = new ArrayList<>(Math.min(cursors.size(), maxConversations));
+        for (Map.Entry<String, Long> cursor : cursors.entrySet()) {
+            if (deltas.size() == maxConversations) {
+                break;
+            }
+            String conversationId = cursor.getKey();
+            long afterSeq = cursor.getValue() != null ? cursor.getValue() : 0;
+            if (!canRead(userId, localUserId, conversationId)) {
+                deltas.add(SyncDelta.of(conversationId, SyncDelta.FORBIDDEN, afterSeq));
+                continue;
+            }
+            deltas.add(delta(conversationId, afterSeq));
+        }
+        return deltas;
+    }
+
+    private SyncDelta delta(String conversationId, long afterSeq) {
+        ConversationLog.Window window = conversationLog.read(conversationId, afterSeq, maxEvents + 1);
+        if (window.latestSeq() == 0 || window.latestSeq() <= afterSeq) {
+            return SyncDelta.of(conversationId, SyncDelta.OK, Math.max(afterSeq, window.latestSeq()));
+        }
+        // The event right after the cursor has been trimmed, so the gap cannot be filled from here
+        if (afterSeq + 1 < window.oldestSeq()) {
+            return SyncDelta.of(conversationId, SyncDelta.REFETCH, window.latestSeq());
+        }
+
+        List<ChatWebSocketHandler.ChatMessageDTO> events = window.events();
+        boolean hasMore = events.size() > maxEvents;
+        if (hasMore) {
+            events = events.subList(0, maxEvents);
+        }
+        Map<Long, ChatWebSocketHandler.ChatMessageDTO> messages = new LinkedHashMap<>();
+        Map<Long, String> edits = new TreeMap<>();
+        // deletes only names messages the client already holds; 'removed' also covers ones it never saw
+        List<Long> deletes = new ArrayList<>();
+        Set<Long> removed = new HashSet<>();
+        Map<ReactionKey, Integer> reactions = new LinkedHashMap<>();
+        for (ChatWebSocketHandler.ChatMessageDTO event : events) {
+            long target = event.getTargetSeq();
+            switch (event.getType() != null ? event.getType() : "") {
+                case EDIT -> {
+                    ChatWebSocketHandler.ChatMessageDTO edited = messages.get(target);
+                    if (edited != null) {
+                        if (isAuthor(event, edited)) {
+                            edited.setContent(event.getContent());
+                        }
+                    } else if (target <= afterSeq && !removed.contains(target)) {
+                        edits.put(target, event.getContent());
+                    }
+                }
+                case DELETE -> {
+                    ChatWebSocketHandler.ChatMessageDTO deleted = messages.get(target);
+                    if (deleted != null) {
+                        if (isAuthor(event, deleted)) {
+                            messages.remove(target);
+                            removed.add(target);
+                        }
+                    } else if (target <= afterSeq && removed.add(target)) {
+                        edits.remove(target);
+                        deletes.add(target);
+                    }
+                }
+                case REACTION -> reactions.merge(new ReactionKey(target, event.getContent()), 1, Integer::sum);
+                case UNREACTION -> reactions.merge(new ReactionKey(target, event.getContent()), -1, Integer::sum);
+                default -> messages.put(event.getSeq(), event);
+            }
+        }
+        List<SyncDelta.ReactionDelta> reactionDeltas = new ArrayList<>();
+        reactions.forEach((key, delta) -> {
+            if (delta != 0 && !removed.contains(key.seq())) {
+                reactionDeltas.add(new SyncDelta.ReactionDelta(key.seq(), key.emoji(), delta));
+            }
+        });
+        long latestSeq = hasMore ? events.get(events.size() - 1).getSeq() : window.latestSeq();
+        return new SyncDelta(conversationId, SyncDelta.OK, latestSeq, hasMore,
+                new ArrayList<>(messages.values()), edits, deletes, reactionDeltas);
+    }
+
+    // Authorship is enforced at ingress; this also covers events logged before that check existed
+    private static boolean isAuthor(ChatWebSocketHandler.ChatMessageDTO event, ChatWebSocketHandler.ChatMessageDTO target) {
+        return event.getSenderId() != null && event.getSenderId().equals(target.getSenderId());
+    }
+
+    // Direct conversations name both users; channels need a membership row
+    private boolean canRead(String userId, UUID localUserId, String conversationId) {
+        String[] parts = conversationId.split(":");
+        if (parts.length == 3 && parts[0].equals("d")) {
+            return parts[1].equals(userId) || parts[2].equals(userId);
+        }
+        if (parts.length == 2 && parts[0].equals("c") && localUserId != null) {
+            try {
+                return chatReadRepository.isChannelMember(UUID.fromString(parts[1]), localUserId);
+            } catch (IllegalArgumentException e) {
+                log.debug("Malformed sync conversation {}", conversationId);
+            }
+        }
+        return false;
+    }
+
+    private record ReactionKey(long seq, String emoji) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.zylo.chatservice.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spans for the message pipeline. The AMQP hop is propagated by the observation-enabled
+ * RabbitTemplate and listener container (traceparent header); the Redis pub/sub hop has no
+ * headers, so the W3C traceparent travels inside ChatMessageDTO instead.
+ * <pre>
+ * chat.ingress -> (rabbit publish/receive) -> chat.route -> chat.socket.send
+ *                                                       \-> chat.forward -> chat.redis.receive -> chat.socket.send
+ * </pre>
+ */
+@Component
+public class ChatTracing {
+
+    private static final String TRACEPARENT = "traceparent";
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    // No-op when tracing is switched off (management.tracing.enabled=false)
+    public ChatTracing(ObjectProvider<Tracer> tracer, ObjectProvider<Propagator> propagator) {
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+    }
+
+    // Child of the current span, or a new trace when there is none
+    public Span start(String name, String tenantId) {
+        Span span = tracer.nextSpan().name(name).start();
+        if (tenantId != null) {
+            span.tag("tenant", tenantId);
+        }
+        return span;
+    }
+
+    // Continues the trace carried in a message payload
+    public Span startFromTraceParent(String name, String traceParent, String tenantId) {
+        if (traceParent == null) {
+            return start(name, tenantId);
+        }
+        Span span = propagator.extract(traceParent, (carrier, key) -> TRACEPARENT.equals(key) ? carrier : null)
+                .name(name)
+                .kind(Span.Kind.CONSUMER)
+                .start();
+        if (tenantId != null) {
+            span.tag("tenant", tenantId);
+        }
+        return span;
+    }
+
+    public Tracer.SpanInScope withSpan(Span span) {
+        return tracer.withSpan(span);
+    }
+
+    // W3C traceparent for the span, null when nothing is being traced
+    public static String traceParent(Span span) {
+        TraceContext context = span.context();
+        if (span.isNoop() || context.traceId().isEmpty()) {
+            return null;
+        }
+        return "00-" + context.traceId() + "-" + context.spanId() + (Boolean.TRUE.equals(context.sampled()) ? "-01" : "-00");
+    }
+}
@@ -0,0 +1,174 @@
+package com.zylo.chatservice.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains this node on shutdown instead of dropping every socket at once. ContextClosedEvent is
+ * published before any lifecycle bean stops, so listeners and the Redis subscriber keep
+ * delivering while the drain runs:
+ * <ol>
+ *   <li>readiness goes to REFUSING_TRAFFIC and new handshakes get 503;</li>
+ *   <li>every client gets a reconnect frame with a delay spread evenly over reconnect-spread-ms;</li>
+ *   <li>this node's user_session mappings are removed in bulk, so routing stops pointing here;</li>
+ *   <li>clients that have not left by timeout-ms are closed with 1012 (service restart), each
+ *       as soon as its pending outbound frames are flushed; all of them are polled together and
+ *       whatever is still pending after flush-timeout-ms is closed anyway.</li>
+ * </ol>
+ * Reconnecting clients catch up on anything they missed with a sync frame.
+ */
+@Component
+public class NodeDrainer {
+
+    private static final Logger log = LoggerFactory.getLogger(NodeDrainer.class);
+
+    private static final long POLL_MS = 250;
+
+    @Autowired
+    private SessionManager sessionManager;
+
+    @Autowired
+    private ReceiptAggregator receiptAggregator;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${zylo.chat.drain.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zylo.chat.drain.reconnect-spread-ms:15000}")
+    private long reconnectSpreadMs;
+
+    @Value("${zylo.chat.drain.timeout-ms:25000}")
+    private long timeoutMs;
+
+    @Value("${zylo.chat.drain.flush-timeout-ms:2000}")
+    private long flushTimeoutMs;
+
+    private volatile boolean draining;
+
+    // A session that queues outbound frames itself, outside ConcurrentWebSocketSessionDecorator
+    public interface OutboundQueue {
+        int pendingFrames();
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void drain(ContextClosedEvent event) {
+        if (!enabled || event.getApplicationContext() != applicationContext || draining) {
+            return;
+        }
+        draining = true;
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+
+        Map<String, WebSocketSession> sessions = sessionManager.getLocalSessions();
+        List<String> userIds = new ArrayList<>(sessions.keySet());
+        log.info("Draining {} WebSocket sessions", userIds.size());
+        sendReconnectHints(sessions, userIds);
+        try {
+            long removed = sessionManager.unregisterAll(userIds);
+            log.info("Removed {} session mappings", removed);
+        } catch (Exception e) {
+            log.warn("Could not remove session mappings: {}", e.getMessage());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (!sessions.isEmpty() && System.nanoTime() < deadline && sleep(POLL_MS)) {
+            // waiting for clients to leave on their own
+        }
+        receiptAggregator.flush();
+        flushAndClose(new ArrayList<>(sessions.values()));
+        log.info("Drain finished");
+    }
+
+    // Slot i of n reconnects after i/n of the spread, plus jitter within its slot
+    private void sendReconnectHints(Map<String, WebSocketSession> sessions, List<String> userIds) {
+        int n = userIds.size();
+        for (int i = 0; i < n; i++) {
+            WebSocketSession session = sessions.get(userIds.get(i));
+            if (session == null || !session.isOpen()) {
+                continue;
+            }
+            long slot = reconnectSpreadMs / Math.max(n, 1);
+            long delayMs = i * slot + (slot > 0 ? ThreadLocalRandom.current().nextLong(slot) : 0);
+            try {
+                session.sendMessage(new TextMessage("{\"type\":\"reconnect\",\"delayMs\":" + delayMs + "}"));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Could not send reconnect hint to user {}: {}", userIds.get(i), e.getMessage());
+            }
+        }
+    }
+
+    // One pass closes every session whose frames are out; the rest are re-polled until the shared deadline
+    private void flushAndClose(List<WebSocketSession> remaining) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushTimeoutMs);
+        while (!remaining.isEmpty()) {
+            boolean expired = System.nanoTime() >= deadline;
+            remaining.removeIf(session -> {
+                if (!expired && pendingFrames(session) > 0) {
+                    return false;
+                }
+                close(session);
+                return true;
+            });
+            if (!remaining.isEmpty() && !sleep(10)) {
+                remaining.forEach(this::close);
+                return;
+            }
+        }
+    }
+
+    // The servlet decorator buffers only while another thread is sending; the reactive session always queues
+    private static int pendingFrames(WebSocketSession session) {
+        int pending = 0;
+        if (session instanceof ConcurrentWebSocketSessionDecorator decorator) {
+            pending = decorator.getBufferSize();
+            session = decorator.getLastSession();
+        }
+        if (session instanceof OutboundQueue queue) {
+            pending += queue.pendingFrames();
+        }
+        return pending;
+    }
+
+    private void close(WebSocketSession session) {
+        try {
+            session.close(CloseStatus.SERVICE_RESTARTED);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Could not close session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    // False when interrupted, which cuts the drain short
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.zylo.chatservice.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zylo.chatservice.dto.Receipt;
+import com.zylo.chatservice.dto.ReceiptBatch;
+import com.zylo.chatservice.metrics.ChatMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivered and read receipts, generated on the node holding the reader's session. Every
+ * delivery or read report only moves a per (conversation, sender, reader) high-water mark; a periodic flush
+ * turns each moved mark into one cumulative receipt ("delivered/read up to seq X"). Senders on this
+ * node get one frame per flush, the rest go out as a single batch on the chat_receipts Redis
+ * channel, which is fire-and-forget like the rest of pub/sub: a lost receipt is superseded by
+ * the next one.
+ */
+@Component
+public class ReceiptAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(ReceiptAggregator.class);
+
+    public static final String CHANNEL = "chat_receipts";
+
+    @Autowired
+    private SessionManager sessionManager;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    @Autowired
+    private String serverId;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Updated only inside compute(), so a flush that removes an entry never races with a writer
+    private final ConcurrentHashMap<Key, Pending> pending = new ConcurrentHashMap<>();
+
+    public void delivered(String conversationId, String senderId, String readerId, String tenantId,
+                          long upTo, String clientMessageId) {
+        if (conversationId == null || senderId == null || readerId == null) {
+            return;
+        }
+        pending.compute(new Key(conversationId, senderId, readerId), (key, p) -> {
+            Pending next = p != null ? p : new Pending(tenantId);
+            next.delivered = later(next.delivered, upTo, clientMessageId);
+            return next;
+        });
+    }
+
+    public void read(String conversationId, String senderId, String readerId, String tenantId,
+                     long upTo, String clientMessageId) {
+        if (conversationId == null || senderId == null || readerId == null) {
+            return;
+        }
+        pending.compute(new Key(conversationId, senderId, readerId), (key, p) -> {
+            Pending next = p != null ? p : new Pending(tenantId);
+            next.read = later(next.read, upTo, clientMessageId);
+            return next;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${zylo.chat.receipts.flush-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Receipt> local = new ArrayList<>();
+        List<Receipt> remote = new ArrayList<>();
+        for (Key key : pending.keySet()) {
+            Pending p = pending.remove(key);
+            if (p == null) {
+                continue;
+            }
+            List<Receipt> target = sessionManager.getSession(key.senderId()) != null ? local : remote;
+            // A read mark at or past the delivered mark makes the delivered receipt redundant
+            if (p.delivered != null && (p.read == null || p.delivered.upTo() > p.read.upTo())) {
+                target.add(p.delivered.toReceipt(key, p.tenantId, Receipt.DELIVERED));
+            }
+            if (p.read != null) {
+                target.add(p.read.toReceipt(key, p.tenantId, Receipt.READ));
+            }
+        }
+        if (!local.isEmpty()) {
+            deliverLocal(local);
+            chatMetrics.recordReceipts(ChatMetrics.LOCAL, local.size());
+        }
+        if (!remote.isEmpty()) {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, new ReceiptBatch(serverId, remote));
+                chatMetrics.recordReceipts(ChatMetrics.REDIS, remote.size());
+            } catch (Exception e) {
+                log.warn("Could not publish {} receipts: {}", remote.size(), e.getMessage());
+            }
+        }
+    }
+
+    // One frame per sender that has a session on this node; receipts for anyone else are dropped
+    public void deliverLocal(List<Receipt> receipts) {
+        Map<String, List<Receipt>> bySender = new HashMap<>();
+        for (Receipt receipt : receipts) {
+            bySender.computeIfAbsent(receipt.senderId(), id -> new ArrayList<>()).add(receipt);
+        }
+        bySender.forEach((senderId, batch) -> {
+            WebSocketSession session = sessionManager.getSession(senderId);
+            if (session == null || !session.isOpen()) {
+                return;
+            }
+            try {
+                session.sendMessage(new TextMessage(mapper.writeValueAsString(Map.of("type", "receipts", "receipts", batch))));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not encode receipts for user {}: {}", senderId, e.getMessage());
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Could not send receipts to user {}: {}", senderId, e.getMessage());
+            }
+        });
+    }
+
+    public boolean isOwnBatch(ReceiptBatch batch) {
+        return serverId.equals(batch.serverId());
+    }
+
+    private static Mark later(Mark current, long upTo, String clientMessageId) {
+        return current == null || upTo >= current.upTo() ? new Mark(upTo, clientMessageId) : current;
+    }
+
+    private record Key(String conversationId, String senderId, String readerId) {
+    }
+
+    private record Mark(long upTo, String clientMessageId) {
+        Receipt toReceipt(Key key, String tenantId, String status) {
+            return new Receipt(key.conversationId(), key.senderId(), key.readerId(), tenantId, status, upTo, clientMessageId);
+        }
+    }
+
+    private static final class Pending {
+        private final String tenantId;
+        private Mark delivered;
+        private Mark read;
+
+        private Pending(String tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+}
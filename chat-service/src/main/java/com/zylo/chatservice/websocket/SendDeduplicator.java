@@ -0,0 +1,116 @@
+package com.zylo.chatservice.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding dedupe window over client message ids, per sender. The last window-size ids of
+ * each connected sender are kept in a small in-memory ring, which catches retries on the
+ * same node without a network call. Anything else is checked against a per-sender Redis
+ * sorted set scored by time, trimmed to the TTL on every check, which catches retries that
+ * arrive on another node after a reconnect.
+ */
+@Component
+public class SendDeduplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(SendDeduplicator.class);
+
+    private static final String KEY_PREFIX = "dedupe:";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${zylo.chat.dedupe.window-size:256}")
+    private int windowSize;
+
+    @Value("${zylo.chat.dedupe.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+
+    // True the first time an id is seen for this sender within the window
+    public boolean firstSeen(String senderId, String clientMessageId) {
+        Ring ring = rings.computeIfAbsent(senderId, id -> new Ring(windowSize));
+        if (!ring.add(clientMessageId)) {
+            return false;
+        }
+        try {
+            return claimInRedis(senderId, clientMessageId);
+        } catch (Exception e) {
+            // Redis unavailable: the local ring still covers same-node retries
+            log.debug("Dedupe check in Redis failed: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    // Undoes firstSeen when the message could not be accepted, so the client's retry goes through
+    public void forget(String senderId, String clientMessageId) {
+        Ring ring = rings.get(senderId);
+        if (ring != null) {
+            ring.remove(clientMessageId);
+        }
+        try {
+            redisTemplate.opsForZSet().remove(KEY_PREFIX + senderId, clientMessageId);
+        } catch (Exception e) {
+            log.debug("Dedupe forget in Redis failed: {}", e.getMessage());
+        }
+    }
+
+    // The Redis window still covers the sender's next connection, wherever it lands
+    public void senderDisconnected(String senderId) {
+        rings.remove(senderId);
+    }
+
+    private boolean claimInRedis(String senderId, String clientMessageId) {
+        String key = KEY_PREFIX + senderId;
+        long now = System.currentTimeMillis();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.zRemRangeByScore(key, Double.NEGATIVE_INFINITY, now - ttlSeconds * 1000.0);
+            redis.zAdd(key, now, clientMessageId, RedisZSetCommands.ZAddArgs.ifNotExists());
+            redis.expire(key, ttlSeconds);
+            return null;
+        });
+        Object added = results.get(1);
+        return added instanceof Boolean bool ? bool : added instanceof Number number && number.longValue() > 0;
+    }
+
+    // Fixed-size FIFO of recent ids; a sender's frames arrive on one thread, the lock is uncontended
+    private static final class Ring {
+        private final String[] ids;
+        private int next;
+
+        Ring(int size) {
+            this.ids = new String[size];
+        }
+
+        synchronized boolean add(String id) {
+            for (String seen : ids) {
+                if (id.equals(seen)) {
+                    return false;
+                }
+            }
+            ids[next] = id;
+            next = (next + 1) % ids.length;
+            return true;
+        }
+
+        synchronized void remove(String id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (id.equals(ids[i])) {
+                    ids[i] = null;
+                }
+            }
+        }
+    }
+}
@@ -2,9 +2,15 @@ package com.zylo.chatservice.websocket;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
@@ -19,6 +25,12 @@ public class SessionManager {
     private final ConcurrentHashMap<String, WebSocketSession> localSessions = new ConcurrentHashMap<>();
 
     private static final String SESSION_PREFIX = "user_session:";
+    private static final int UNREGISTER_BATCH = 500;
+
+    // Deletes each mapping that still points at this server; a user who already reconnected elsewhere keeps theirs
+    private static final RedisScript<Long> DELETE_IF_OWNED = new DefaultRedisScript<>(
+            "local n = 0 for i, key in ipairs(KEYS) do if redis.call('GET', key) == ARGV[1] then redis.call('DEL', key) n = n + 1 end end return n",
+            Long.class);
 
     // Store both locally and in Redis
     public void addSession(String userId, WebSocketSession session) {
@@ -42,7 +54,33 @@ public class SessionManager {
     // Remove from both local and Redis
     public void removeSession(String userId) {
         localSessions.remove(userId);
-        redisTemplate.delete(SESSION_PREFIX + userId);
+        redisTemplate.execute(DELETE_IF_OWNED, List.of(SESSION_PREFIX + userId), serverId);
+    }
+
+    public Map<String, WebSocketSession> getLocalSessions() {
+        return localSessions;
+    }
+
+    // Drops the Redis mappings of the given users in batches; their local sessions stay open
+    public long unregisterAll(Collection<String> userIds) {
+        long removed = 0;
+        List<String> keys = new ArrayList<>(UNREGISTER_BATCH);
+        for (String userId : userIds) {
+            keys.add(SESSION_PREFIX + userId);
+            if (keys.size() == UNREGISTER_BATCH) {
+                removed += deleteIfOwned(keys);
+                keys.clear();
+            }
+        }
+        if (!keys.isEmpty()) {
+            removed += deleteIfOwned(keys);
+        }
+        return removed;
+    }
+
+    private long deleteIfOwned(List<String> keys) {
+        Long removed = redisTemplate.execute(DELETE_IF_OWNED, keys, serverId);
+        return removed != null ? removed : 0;
     }
 
     // Check if user is on this server
@@ -0,0 +1,229 @@
+package com.zylo.chatservice.repository;
+
+import com.zylo.authservice.component.UserIdentityResolver;
+import com.zylo.authservice.entity.Tenant;
+import com.zylo.authservice.entity.User;
+import com.zylo.authservice.repository.UserIdentityRepository;
+import com.zylo.chatservice.dto.ChannelMemberView;
+import com.zylo.chatservice.dto.ChannelView;
+import com.zylo.chatservice.dto.MessageView;
+import com.zylo.chatservice.entity.Channel;
+import com.zylo.chatservice.entity.ChannelMember;
+import com.zylo.chatservice.entity.ChannelMemberId;
+import com.zylo.chatservice.entity.Message;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every hot read in ChatReadRepository must stay one SQL statement, including reading the
+ * returned views. Counted with Hibernate statistics so an accidental lazy load or N+1 fails here.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "spring.flyway.enabled=false"
+})
+class ChatReadRepositoryTest {
+
+    private static final int MESSAGES = 30;
+    // Every third message shares its timestamp with the one before it, so pages split on ties
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = {Message.class, User.class})
+    @Import({ChatReadRepository.class, UserIdentityRepository.class, UserIdentityResolver.class})
+    static class Config {
+    }
+
+    @Autowired
+    private ChatReadRepository chatReadRepository;
+
+    @Autowired
+    private UserIdentityResolver userIdentityResolver;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Tenant tenant;
+    private Channel channel;
+    private User member;
+    private User outsider;
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setName("acme");
+        entityManager.persist(tenant);
+
+        member = user("member");
+        member.setKeycloakId(UUID.randomUUID().toString());
+        outsider = user("outsider");
+
+        channel = new Channel();
+        channel.setTenant(tenant);
+        channel.setName("general");
+        channel.setType("public");
+        channel.setCreatedBy(member);
+        channel.setAdmin(member);
+        entityManager.persist(channel);
+
+        ChannelMember membership = new ChannelMember();
+        membership.setId(new ChannelMemberId(channel.getId(), member.getId()));
+        membership.setChannel(channel);
+        membership.setUser(member);
+        membership.setRole("admin");
+        entityManager.persist(membership);
+
+        for (int i = 0; i < MESSAGES; i++) {
+            Message message = new Message();
+            message.setTenant(tenant);
+            message.setChannel(channel);
+            message.setUser(member);
+            message.setContent("message " + i);
+            message.setType("text");
+            message.setCreatedAt(START.plusSeconds(i - i / 3));
+            entityManager.persist(message);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void channelMessagesPageIsOneStatement() {
+        List<MessageView> page = chatReadRepository.getChannelMessages(tenant.getId(), channel.getId(), null, null, 10);
+        page.forEach(view -> assertEquals("member", view.username()));
+
+        assertEquals(10, page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void keysetCursorPagesThroughTiesWithoutSkippingOrRepeating() {
+        Set<UUID> seen = new HashSet<>();
+        List<MessageView> all = new ArrayList<>();
+        LocalDateTime before = null;
+        UUID beforeId = null;
+        int pages = 0;
+        while (true) {
+            List<MessageView> page = chatReadRepository.getChannelMessages(tenant.getId(), channel.getId(), before, beforeId, 4);
+            if (page.isEmpty()) {
+                break;
+            }
+            pages++;
+            for (MessageView view : page) {
+                assertTrue(seen.add(view.id()), "message returned twice: " + view.content());
+            }
+            all.addAll(page);
+            MessageView oldest = page.get(page.size() - 1);
+            before = oldest.createdAt();
+            beforeId = oldest.id();
+        }
+
+        assertEquals(MESSAGES, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertFalse(all.get(i).createdAt().isAfter(all.get(i - 1).createdAt()), "not newest first");
+        }
+        // one statement per page, plus the final empty page
+        assertEquals(pages + 1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void archivePageIsOneStatement() {
+        List<MessageView> page = chatReadRepository.getChannelMessagesForArchive(
+                tenant.getId(), channel.getId(), null, START.plusDays(1), 50);
+
+        assertEquals(MESSAGES, page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void channelsAreOneStatement() {
+        List<ChannelView> channels = chatReadRepository.getChannels(tenant.getId(), false);
+
+        assertEquals(1, channels.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void channelMembersAreOneStatement() {
+        List<ChannelMemberView> members = chatReadRepository.getChannelMembers(channel.getId());
+
+        assertEquals(1, members.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void membershipCheckIsOneStatement() {
+        assertTrue(chatReadRepository.isChannelMember(channel.getId(), member.getId()));
+        assertFalse(chatReadRepository.isChannelMember(channel.getId(), outsider.getId()));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void membershipIsCheckedAgainstTheUserLinkedToTheTokenSubject() {
+        UUID localId = userIdentityResolver.resolve(token(member.getKeycloakId(), null));
+
+        assertEquals(member.getId(), localId);
+        assertNotEquals(member.getKeycloakId(), member.getId().toString());
+        assertTrue(chatReadRepository.isChannelMember(channel.getId(), localId));
+        // The sub itself is not a users.id
+        assertFalse(chatReadRepository.isChannelMember(channel.getId(), UUID.fromString(member.getKeycloakId())));
+    }
+
+    @Test
+    void unlinkedUserIsLinkedOnceByVerifiedEmail() {
+        String sub = UUID.randomUUID().toString();
+
+        assertNull(userIdentityResolver.resolve(token(sub, false)));
+        assertEquals(outsider.getId(), userIdentityResolver.resolve(token(sub, true)));
+        // Another account with the same email cannot take the row over
+        assertNull(userIdentityResolver.resolve(token(UUID.randomUUID().toString(), true)));
+    }
+
+    private static Jwt token(String sub, Boolean emailVerified) {
+        Jwt.Builder builder = Jwt.withTokenValue("token").header("alg", "none").subject(sub).claim("email", "outsider@acme.test");
+        if (emailVerified != null) {
+            builder.claim("email_verified", emailVerified);
+        }
+        return builder.build();
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setTenant(tenant);
+        user.setUsername(username);
+        user.setEmail(username + "@acme.test");
+        entityManager.persist(user);
+        return user;
+    }
+}
@@ -25,7 +25,6 @@ export interface UserRegistrationData {
   readonly email: string;
   readonly firstName: string;
   readonly lastName: string;
-  readonly password: string;
   readonly organization: string;
 }
 
@@ -46,7 +45,6 @@ export interface UserInvitation {
   readonly email: string;
   readonly firstName: string;
   readonly lastName: string;
-  readonly password: string;
   readonly tenantId?: string;
   readonly roles?: string[];
   readonly groups?: string[];
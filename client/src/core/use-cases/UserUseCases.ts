@@ -53,10 +53,6 @@ export class InviteUserUseCase {
       throw new Error('Last name is required');
     }
 
-    if (!invitation.password || invitation.password.length < 8) {
-      throw new Error('Password must be at least 8 characters long');
-    }
-
     // Email validation
     const emailRegex = /^[^\s@]+@[^\s@]+\.[^\s@]+$/;
     if (!emailRegex.test(invitation.email)) {
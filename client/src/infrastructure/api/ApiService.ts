@@ -255,9 +255,11 @@ export class ApiService {
     }
   }
 
-  async getAllUsers(page: number = 0, size: number = 20): Promise<ApiResponse> {
+  async getAllUsers(page: number = 0, size: number = 20, searchValue: string = ''): Promise<ApiResponse> {
     try {
-      const response = await this.httpClient.get(`/v1/users?page=${page}&size=${size}`);
+      const response = await this.httpClient.get('/v1/users', {
+        params: { page, size, searchValue },
+      });
       return {
         data: response.data,
         statusCode: response.status,
@@ -278,7 +280,6 @@ export class ApiService {
         email: invitation.email,
         firstName: invitation.firstName,
         lastName: invitation.lastName,
-        password: invitation.password,
       });
       return {
         data: response.data,
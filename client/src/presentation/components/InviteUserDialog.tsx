@@ -20,7 +20,7 @@ import {
   DialogTrigger,
   DialogFooter
 } from '@/components/ui/dialog';
-import { Loader2, CheckCircle, User, Mail, Building, Lock, UserPlus, X } from 'lucide-react';
+import { Loader2, CheckCircle, User, Mail, Building, UserPlus, X } from 'lucide-react';
 import { UserInvitation } from '@/shared/types';
 import { getContainer } from '@/infrastructure/di/Container';
 import { useToast } from '@/hooks/use-toast';
@@ -40,7 +40,6 @@ export const InviteUserDialog: React.FC<InviteUserDialogProps> = ({
     email: '',
     firstName: '',
     lastName: '',
-    password: '',
     tenantId: '',
     roles: [],
     groups: [],
@@ -64,15 +63,6 @@ export const InviteUserDialog: React.FC<InviteUserDialogProps> = ({
     if (error) setError(null);
   };
 
-  const generateRandomPassword = () => {
-    const chars = 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789!@#$%^&*';
-    let password = '';
-    for (let i = 0; i < 12; i++) {
-      password += chars.charAt(Math.floor(Math.random() * chars.length));
-    }
-    setFormData(prev => ({ ...prev, password }));
-  };
-
   const validateForm = (): boolean => {
     if (!formData.firstName.trim()) {
       setError('First name is required');
@@ -90,10 +80,6 @@ export const InviteUserDialog: React.FC<InviteUserDialogProps> = ({
       setError('Email is required');
       return false;
     }
-    if (!formData.password || formData.password.length < 8) {
-      setError('Password must be at least 8 characters long');
-      return false;
-    }
     
     // Email validation
     const emailRegex = /^[^\s@]+@[^\s@]+\.[^\s@]+$/;
@@ -154,7 +140,6 @@ export const InviteUserDialog: React.FC<InviteUserDialogProps> = ({
       email: '',
       firstName: '',
       lastName: '',
-      password: '',
       tenantId: '',
       roles: [],
       groups: [],
@@ -197,7 +182,7 @@ export const InviteUserDialog: React.FC<InviteUserDialogProps> = ({
               </h3>
               <p className="text-sm text-slate-600">
                 {formData.firstName} {formData.lastName} has been successfully invited.
-                They will receive an email with login instructions.
+                They will receive an email with a link to set their password.
               </p>
             </div>
             
@@ -302,40 +287,10 @@ export const InviteUserDialog: React.FC<InviteUserDialogProps> = ({
               </div>
             </div>
 
-            {/* Password */}
-            <div className="space-y-2">
-              <div className="flex items-center justify-between">
-                <Label htmlFor="password" className="text-sm font-medium">
-                  Temporary Password *
-                </Label>
-                <Button
-                  type="button"
-                  variant="outline"
-                  size="sm"
-                  onClick={generateRandomPassword}
-                  className="text-xs"
-                >
-                  Generate
-                </Button>
-              </div>
-              <div className="relative">
-                <Lock className="absolute left-3 top-1/2 transform -translate-y-1/2 h-4 w-4 text-slate-400" />
-                <Input
-                  id="password"
-                  name="password"
-                  type="text"
-                  value={formData.password}
-                  onChange={handleInputChange}
-                  required
-                  minLength={8}
-                  className="pl-10"
-                  placeholder="••••••••"
-                />
-              </div>
-              <p className="text-xs text-slate-500">
-                User will be prompted to change this on first login
-              </p>
-            </div>
+            {/* No temporary password: Keycloak emails the invitee a link to verify the address and set one */}
+            <p className="text-xs text-slate-500">
+              The invitee gets an email with a link to verify their address and choose a password.
+            </p>
 
             <Separator />
 
@@ -9,7 +9,7 @@ import { Card, CardContent, CardDescription, CardHeader, CardTitle } from '@/com
 import { Input } from '@/components/ui/input';
 import { Label } from '@/components/ui/label';
 import { Alert, AlertDescription } from '@/components/ui/alert';
-import { Loader2, CheckCircle, User, Mail, Building, Lock } from 'lucide-react';
+import { Loader2, CheckCircle, User, Mail, Building } from 'lucide-react';
 import { UserRegistrationRequest } from '@/shared/types';
 import { getContainer } from '@/infrastructure/di/Container';
 import { useAuth } from '@/presentation/contexts/AuthContext';
@@ -24,7 +24,6 @@ export const SignupForm: React.FC<SignupFormProps> = ({ onSuccess }) => {
     email: '',
     firstName: '',
     lastName: '',
-    password: '',
     organization: '',
   });
 
@@ -63,10 +62,6 @@ export const SignupForm: React.FC<SignupFormProps> = ({ onSuccess }) => {
       setError('Email is required');
       return false;
     }
-    if (!formData.password || formData.password.length < 8) {
-      setError('Password must be at least 8 characters long');
-      return false;
-    }
     if (!formData.organization.trim()) {
       setError('Organization is required');
       return false;
@@ -120,7 +115,7 @@ export const SignupForm: React.FC<SignupFormProps> = ({ onSuccess }) => {
                 Registration Successful! 🎉
               </h3>
               <p className="text-sm text-slate-600">
-                Your account has been created successfully. Please check your email for verification.
+                Your account is being set up. Check your email for a link to verify your address and choose a password.
               </p>
             </div>
             
@@ -255,29 +250,10 @@ export const SignupForm: React.FC<SignupFormProps> = ({ onSuccess }) => {
             </div>
           </div>
 
-          {/* Password */}
-          <div className="space-y-2">
-            <Label htmlFor="password" className="text-sm font-medium">
-              Password
-            </Label>
-            <div className="relative">
-              <Lock className="absolute left-3 top-1/2 transform -translate-y-1/2 h-4 w-4 text-slate-400" />
-              <Input
-                id="password"
-                name="password"
-                type="password"
-                value={formData.password}
-                onChange={handleInputChange}
-                required
-                minLength={8}
-                className="pl-10"
-                placeholder="••••••••"
-              />
-            </div>
-            <p className="text-xs text-slate-500">
-              Must be at least 8 characters long
-            </p>
-          </div>
+          {/* The password is never entered here: Keycloak emails a link to verify the address and set it */}
+          <p className="text-xs text-slate-500">
+            We'll email you a link to verify your address and choose a password.
+          </p>
 
           <Button
             type="submit"
@@ -58,11 +58,11 @@ export const UserListDialog: React.FC<UserListDialogProps> = ({
 
   const pageSize = 10;
 
-  const fetchUsers = async (page: number = 0, _search: string = '') => {
+  const fetchUsers = async (page: number = 0, search: string = '') => {
     setLoading(true);
     try {
       const apiService = getContainer().getApiService();
-      const response = await apiService.getAllUsers(page, pageSize);
+      const response = await apiService.getAllUsers(page, pageSize, search.trim());
       
       if (response.error) {
         toast({
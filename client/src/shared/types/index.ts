@@ -22,7 +22,6 @@ export interface UserRegistrationRequest {
   email: string;
   firstName: string;
   lastName: string;
-  password: string;
   organization: string;
 }
 
@@ -0,0 +1,180 @@
+package com.zylo.common.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versioned value serializer for the shared RedisTemplate.
+ * <p>
+ * Layout: {@code [version][tag][payload]}. Scalars are written raw (UTF-8 strings, big-endian
+ * numbers, 16-byte UUIDs); objects are written as Smile (binary JSON) behind a small numeric type id
+ * that has to be registered up front with {@link #registerType(int, Class)}.
+ * <p>
+ * Values written by the previous {@link JdkSerializationRedisSerializer} start with the Java
+ * serialization magic {@code 0xACED} and are still read transparently; they are replaced
+ * with the compact form the next time the key is written. Set, hash and sorted-set members are
+ * matched by their bytes, so those have to be re-encoded explicitly (see
+ * {@code AccountsRepository.reencodeTenantsCache} for the tenants set).
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public static final byte VERSION_1 = 1;
+
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_BYTES = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_INTEGER = 4;
+    private static final byte TAG_BOOLEAN = 5;
+    private static final byte TAG_UUID = 6;
+    private static final byte TAG_OBJECT = 16;
+
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    // The 4-byte Smile header is redundant behind our own version byte
+    private final ObjectMapper smileMapper = new ObjectMapper(SmileFactory.builder()
+            .disable(SmileGenerator.Feature.WRITE_HEADER)
+            .disable(SmileParser.Feature.REQUIRE_HEADER)
+            .build())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final JdkSerializationRedisSerializer legacySerializer = new JdkSerializationRedisSerializer();
+
+    private final Map<Integer, Class<?>> typesById = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Integer> idsByType = new ConcurrentHashMap<>();
+
+    // Type ids are part of the stored format: never reuse or renumber one
+    public void registerType(int typeId, Class<?> type) {
+        Class<?> existing = typesById.putIfAbsent(typeId, type);
+        if (existing != null && existing != type) {
+            throw new IllegalStateException("Redis type id " + typeId + " already registered for " + existing.getName());
+        }
+        idsByType.put(type, typeId);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof String s) {
+            return withHeader(TAG_STRING, s.getBytes(StandardCharsets.UTF_8));
+        }
+        if (value instanceof byte[] bytes) {
+            return withHeader(TAG_BYTES, bytes);
+        }
+        if (value instanceof Long l) {
+            return withHeader(TAG_LONG, ByteBuffer.allocate(Long.BYTES).putLong(l).array());
+        }
+        if (value instanceof Integer i) {
+            return withHeader(TAG_INTEGER, ByteBuffer.allocate(Integer.BYTES).putInt(i).array());
+        }
+        if (value instanceof Boolean b) {
+            return withHeader(TAG_BOOLEAN, new byte[]{(byte) (b ? 1 : 0)});
+        }
+        if (value instanceof UUID uuid) {
+            return withHeader(TAG_UUID, ByteBuffer.allocate(16)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array());
+        }
+        Integer typeId = idsByType.get(value.getClass());
+        if (typeId == null) {
+            throw new SerializationException("Type not registered with CompactRedisSerializer: " + value.getClass().getName());
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            out.write(VERSION_1);
+            out.write(TAG_OBJECT);
+            writeVarInt(out, typeId);
+            smileMapper.writeValue(out, value);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new SerializationException("Could not serialize " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > 1 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            return legacySerializer.deserialize(bytes);
+        }
+        if (bytes[0] != VERSION_1) {
+            throw new SerializationException("Unsupported Redis value format version " + bytes[0]);
+        }
+        byte tag = bytes[1];
+        switch (tag) {
+            case TAG_STRING:
+                return new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_8);
+            case TAG_BYTES:
+                return Arrays.copyOfRange(bytes, 2, bytes.length);
+            case TAG_LONG:
+                return ByteBuffer.wrap(bytes, 2, Long.BYTES).getLong();
+            case TAG_INTEGER:
+                return ByteBuffer.wrap(bytes, 2, Integer.BYTES).getInt();
+            case TAG_BOOLEAN:
+                return bytes[2] != 0;
+            case TAG_UUID:
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, 16);
+                return new UUID(buffer.getLong(), buffer.getLong());
+            case TAG_OBJECT:
+                return readObject(bytes);
+            default:
+                throw new SerializationException("Unknown Redis value tag " + tag);
+        }
+    }
+
+    private Object readObject(byte[] bytes) {
+        int typeId = 0;
+        int shift = 0;
+        int offset = 2;
+        byte b;
+        do {
+            b = bytes[offset++];
+            typeId |= (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        Class<?> type = typesById.get(typeId);
+        if (type == null) {
+            throw new SerializationException("Unknown Redis type id " + typeId);
+        }
+        try {
+            return smileMapper.readValue(bytes, offset, bytes.length - offset, type);
+        } catch (IOException e) {
+            throw new SerializationException("Could not deserialize " + type.getName(), e);
+        }
+    }
+
+    private static byte[] withHeader(byte tag, byte[] payload) {
+        byte[] bytes = new byte[payload.length + 2];
+        bytes[0] = VERSION_1;
+        bytes[1] = tag;
+        System.arraycopy(payload, 0, bytes, 2, payload.length);
+        return bytes;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -1,20 +1,36 @@
 package com.zylo.common.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
 
 @Configuration
 public class RedisConfig {
+
+    @Bean
+    public CompactRedisSerializer compactRedisSerializer() {
+        return new CompactRedisSerializer();
+    }
+
+    // "compact" (default) or "jdk"; the compact serializer can still read values written by jdk
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer(@Value("${zylo.redis.value-serializer:compact}") String format,
+                                                        CompactRedisSerializer compactRedisSerializer) {
+        return "jdk".equalsIgnoreCase(format) ? new JdkSerializationRedisSerializer() : compactRedisSerializer;
+    }
+
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new JdkSerializationRedisSerializer());
+        template.setValueSerializer(redisValueSerializer);
         return template;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+package com.zylo.common.id;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * RFC 9562 version 7 UUIDs: 48-bit Unix epoch millis, then randomness.
+ * Ids sort by creation time, so inserts land on the right edge of the primary key index
+ * and an id can double as a keyset cursor. Within one millisecond the 12-bit rand_a field
+ * is used as a counter, which keeps ids from a single node strictly increasing.
+ * Any node or client can mint them without a database round trip.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static long lastMillis;
+    private static int counter;
+
+    private UuidV7() {
+    }
+
+    public static UUID next() {
+        long millis;
+        int sequence;
+        synchronized (UuidV7.class) {
+            millis = System.currentTimeMillis();
+            if (millis <= lastMillis) {
+                // Same millisecond or clock stepped back: keep counting on the last timestamp
+                millis = lastMillis;
+                counter++;
+                if (counter > 0xfff) {
+                    millis = ++lastMillis;
+                    counter = RANDOM.nextInt(0x800);
+                }
+            } else {
+                lastMillis = millis;
+                // Random start leaves headroom for the counter within the millisecond
+                counter = RANDOM.nextInt(0x800);
+            }
+            sequence = counter;
+        }
+        long msb = (millis << 16) | 0x7000L | sequence;
+        long lsb = (RANDOM.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    public static boolean isVersion7(UUID uuid) {
+        return uuid.version() == 7;
+    }
+
+    public static Instant timestamp(UUID uuid) {
+        if (!isVersion7(uuid)) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + uuid);
+        }
+        return Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16);
+    }
+
+    // Smallest v7 id for a given instant, for use as an exclusive/inclusive range bound
+    public static UUID lowerBound(Instant instant) {
+        return new UUID((instant.toEpochMilli() << 16) | 0x7000L, 0x8000000000000000L);
+    }
+}
@@ -0,0 +1,211 @@
+package com.zylo.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens N authenticated connections spread over the given chat nodes, drives one of the
+ * {@link SendPattern}s at a target message rate and reports end-to-end latency percentiles
+ * per interval and for the whole measured run.
+ */
+public final class LoadGenerator {
+
+    private static final long TICK_MILLIS = 10;
+
+    private final LoadTestConfig config;
+    private final VirtualUser.Stats stats = new VirtualUser.Stats();
+    private final List<VirtualUser> users = new ArrayList<>();
+    private final Histogram total = new Histogram(3);
+    private final String padding;
+
+    private int nextSender;
+    private double sendCredit;
+    private long lastSent;
+    private long lastReceived;
+
+    private LoadGenerator(LoadTestConfig config) {
+        this.config = config;
+        this.padding = "x".repeat(Math.max(0, config.payloadBytes()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        new LoadGenerator(config).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        TokenIssuer issuer = null;
+        try {
+            if ("issuer".equals(config.tokens())) {
+                issuer = new TokenIssuer(config.issuerPort());
+                System.out.printf("Token issuer running. Start the chat nodes with:%n"
+                                + "  --spring.security.oauth2.resourceserver.jwt.issuer-uri=%s%n"
+                                + "  --spring.security.oauth2.resourceserver.jwt.jwk-set-uri=%s%n",
+                        issuer.issuer(), issuer.jwksUri());
+                long ttl = config.warmupSeconds() + config.durationSeconds() + 600L;
+                for (int i = 0; i < config.connections(); i++) {
+                    String userId = UUID.nameUUIDFromBytes(("loadtest-" + i).getBytes(StandardCharsets.UTF_8)).toString();
+                    users.add(new VirtualUser(userId, "lt-" + i, issuer.mint(userId, "lt-" + i, ttl), stats));
+                }
+            } else if (config.tokens().startsWith("file:")) {
+                // one "<sub> <access token>" per line, e.g. exported from a Keycloak test realm
+                List<String> lines = Files.readAllLines(Path.of(config.tokens().substring("file:".length())));
+                for (int i = 0; i < Math.min(config.connections(), lines.size()); i++) {
+                    String[] parts = lines.get(i).trim().split("\\s+", 2);
+                    users.add(new VirtualUser(parts[0], "lt-" + i, parts[1], stats));
+                }
+            } else {
+                throw new IllegalArgumentException("--tokens must be 'issuer' or 'file:<path>'");
+            }
+
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            connectAll(client);
+            drive();
+        } finally {
+            users.forEach(VirtualUser::close);
+            if (issuer != null) {
+                issuer.close();
+            }
+        }
+    }
+
+    private void connectAll(HttpClient client) throws InterruptedException {
+        long start = System.nanoTime();
+        long pauseNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, config.connectRatePerSecond());
+        List<CompletableFuture<?>> pending = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            pending.add(users.get(i).connect(client, config.nodes().get(i % config.nodes().size())));
+            long due = start + (i + 1) * pauseNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // failures are counted per connection
+        }
+        Histogram connect = stats.connectLatency.getIntervalHistogram();
+        System.out.printf("Connected %d/%d in %.1fs (%d failed), handshake p50=%.1fms p99=%.1fms max=%.1fms%n",
+                stats.connected.get(), users.size(), (System.nanoTime() - start) / 1e9, stats.connectFailures.sum(),
+                millis(connect.getValueAtPercentile(50)), millis(connect.getValueAtPercentile(99)), millis(connect.getMaxValue()));
+    }
+
+    private void drive() throws Exception {
+        if (users.size() < 2) {
+            throw new IllegalStateException("Need at least two users");
+        }
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        if (config.pattern() == SendPattern.BURST) {
+            scheduler.scheduleAtFixedRate(this::burst, 0, config.burstIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            scheduler.scheduleAtFixedRate(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        System.out.printf("Warmup %ds, pattern %s at %d msg/s%n", config.warmupSeconds(), config.pattern(), config.messagesPerSecond());
+        TimeUnit.SECONDS.sleep(config.warmupSeconds());
+        stats.latency.getIntervalHistogram();
+        stats.recording = true;
+        lastSent = stats.sent.sum();
+        lastReceived = stats.received.sum();
+
+        System.out.println("   time  conn   sent/s   recv/s  dropped     p50ms     p99ms    p999ms     maxms");
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+        int elapsed = 0;
+        while (System.nanoTime() < end) {
+            TimeUnit.SECONDS.sleep(config.reportIntervalSeconds());
+            elapsed += config.reportIntervalSeconds();
+            report(elapsed, config.reportIntervalSeconds());
+        }
+        scheduler.shutdownNow();
+        // let in-flight messages land before the final numbers
+        TimeUnit.SECONDS.sleep(2);
+        report(elapsed, config.reportIntervalSeconds());
+
+        System.out.printf("%nTotal: sent=%d received=%d dropped=%d sendFailures=%d closedByServer=%d errors=%d%n",
+                stats.sent.sum(), stats.received.sum(), stats.dropped.sum(), stats.sendFailures.sum(),
+                stats.closedByServer.sum(), stats.errors.sum());
+        System.out.printf("Latency p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms (n=%d)%n",
+                millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(90)),
+                millis(total.getValueAtPercentile(99)), millis(total.getValueAtPercentile(99.9)),
+                millis(total.getMaxValue()), total.getTotalCount());
+        if (config.histogramFile() != null) {
+            Path file = Path.of(config.histogramFile());
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (PrintStream out = new PrintStream(new FileOutputStream(file.toFile()))) {
+                total.outputPercentileDistribution(out, 1000.0);
+            }
+            System.out.println("Percentile distribution (ms) written to " + file);
+        }
+    }
+
+    // Steady patterns: spread the target rate evenly over 10ms ticks, senders in round robin
+    private void tick() {
+        sendCredit += config.messagesPerSecond() * TICK_MILLIS / 1000.0;
+        int count = (int) sendCredit;
+        sendCredit -= count;
+        for (int i = 0; i < count; i++) {
+            int sender = nextSender;
+            nextSender = (nextSender + 1) % users.size();
+            sendOne(sender);
+        }
+    }
+
+    // Enough bursts per interval to average out at the target rate
+    private void burst() {
+        int perInterval = (int) ((long) config.messagesPerSecond() * config.burstIntervalMillis() / 1000);
+        int bursts = Math.max(1, perInterval / Math.max(1, config.burstSize()));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int b = 0; b < bursts; b++) {
+            int sender = random.nextInt(users.size());
+            for (int i = 0; i < config.burstSize(); i++) {
+                sendOne(sender);
+            }
+        }
+    }
+
+    private void sendOne(int sender) {
+        int receiver = config.pattern().receiverOf(sender, users.size(), config.hotReceivers());
+        users.get(sender).send(users.get(receiver), padding);
+    }
+
+    private void report(int elapsedSeconds, int intervalSeconds) {
+        Histogram interval = stats.latency.getIntervalHistogram();
+        total.add(interval);
+        long sent = stats.sent.sum();
+        long received = stats.received.sum();
+        System.out.printf("%6ds %5d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f%n",
+                elapsedSeconds, stats.connected.get(),
+                (sent - lastSent) / intervalSeconds, (received - lastReceived) / intervalSeconds, stats.dropped.sum(),
+                millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                millis(interval.getValueAtPercentile(99.9)), millis(interval.getMaxValue()));
+        lastSent = sent;
+        lastReceived = received;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,65 @@
+package com.zylo.loadtest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, all in {@code --name=value} form. Defaults describe a small smoke run
+ * against one local node.
+ */
+record LoadTestConfig(
+        List<URI> nodes,
+        int connections,
+        int connectRatePerSecond,
+        SendPattern pattern,
+        int messagesPerSecond,
+        int durationSeconds,
+        int warmupSeconds,
+        int hotReceivers,
+        int burstSize,
+        int burstIntervalMillis,
+        int payloadBytes,
+        String tokens,
+        int issuerPort,
+        int reportIntervalSeconds,
+        String histogramFile) {
+
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        List<URI> nodes = new ArrayList<>();
+        for (String node : options.getOrDefault("nodes", "ws://localhost:8081/ws/chat").split(",")) {
+            nodes.add(URI.create(node.trim()));
+        }
+        return new LoadTestConfig(
+                nodes,
+                intOption(options, "connections", 1000),
+                intOption(options, "connect-rate", 500),
+                SendPattern.fromOption(options.getOrDefault("pattern", "dm-pairs")),
+                intOption(options, "rate", 1000),
+                intOption(options, "duration", 60),
+                intOption(options, "warmup", 10),
+                intOption(options, "hot-receivers", 10),
+                intOption(options, "burst-size", 50),
+                intOption(options, "burst-interval-ms", 1000),
+                intOption(options, "payload-bytes", 100),
+                options.getOrDefault("tokens", "issuer"),
+                intOption(options, "issuer-port", 8099),
+                intOption(options, "report-interval", 5),
+                options.get("hgrm"));
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
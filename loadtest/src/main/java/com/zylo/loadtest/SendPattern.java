@@ -0,0 +1,36 @@
+package com.zylo.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Who sends to whom. Users are numbered 0..n-1 in connection order, so consecutive users
+ * land on different nodes and most messages cross nodes through Redis.
+ */
+enum SendPattern {
+
+    // Fixed pairs (0,1), (2,3), ... talking to each other
+    DM_PAIRS,
+    // Everyone sends to a small set of receivers, the fan-in worst case for one session
+    HOT_RECEIVERS,
+    // Quiet, then bursts of back-to-back messages from a few random senders
+    BURST;
+
+    static SendPattern fromOption(String value) {
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+
+    int receiverOf(int sender, int users, int hotReceivers) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (this) {
+            case DM_PAIRS -> (sender ^ 1) < users ? sender ^ 1 : 0;
+            case HOT_RECEIVERS -> {
+                int receiver = random.nextInt(Math.min(hotReceivers, users));
+                yield receiver == sender ? (receiver + 1) % users : receiver;
+            }
+            case BURST -> {
+                int receiver = random.nextInt(users - 1);
+                yield receiver >= sender ? receiver + 1 : receiver;
+            }
+        };
+    }
+}
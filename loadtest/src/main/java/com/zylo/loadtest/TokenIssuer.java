@@ -0,0 +1,80 @@
+package com.zylo.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stand-in for Keycloak: signs RS256 access tokens with a throwaway key and serves the
+ * matching JWKS. Start the chat nodes with
+ * {@code --spring.security.oauth2.resourceserver.jwt.jwk-set-uri=<jwksUri>} and
+ * {@code --spring.security.oauth2.resourceserver.jwt.issuer-uri=<issuer>} to accept them.
+ */
+final class TokenIssuer implements AutoCloseable {
+
+    private final RSAKey key;
+    private final RSASSASigner signer;
+    private final HttpServer server;
+    private final String issuer;
+
+    TokenIssuer(int port) throws IOException, JOSEException {
+        key = new RSAKeyGenerator(2048).keyID(UUID.randomUUID().toString()).keyUse(KeyUse.SIGNATURE).generate();
+        signer = new RSASSASigner(key);
+        issuer = "http://localhost:" + port + "/realms/loadtest";
+        byte[] jwks = new JWKSet(key.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/realms/loadtest/protocol/openid-connect/certs", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, jwks.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(jwks);
+            }
+        });
+        server.start();
+    }
+
+    String issuer() {
+        return issuer;
+    }
+
+    String jwksUri() {
+        return issuer + "/protocol/openid-connect/certs";
+    }
+
+    String mint(String subject, String username, long ttlSeconds) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .issuer(issuer)
+                .subject(subject)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(ttlSeconds)))
+                .claim("preferred_username", username)
+                .claim("groups", List.of("/loadtest"))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
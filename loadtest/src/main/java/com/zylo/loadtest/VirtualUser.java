@@ -0,0 +1,160 @@
+package com.zylo.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One authenticated /ws/chat connection. Outgoing frames carry their send time in the
+ * content ("lt|<epoch micros>|..."), so the receiving user can record end-to-end latency
+ * without any shared state between sender and receiver.
+ */
+final class VirtualUser implements WebSocket.Listener {
+
+    private static final String MARKER = "\"content\":\"lt|";
+    // java.net.http allows one outstanding send per socket; beyond this we count the frame as dropped
+    private static final int MAX_QUEUED_SENDS = 256;
+
+    final String userId;
+    private final String username;
+    private final String token;
+    private final Stats stats;
+
+    private volatile WebSocket webSocket;
+    private CompletableFuture<WebSocket> sendChain;
+    private final AtomicInteger queuedSends = new AtomicInteger();
+    private final StringBuilder partial = new StringBuilder();
+
+    VirtualUser(String userId, String username, String token, Stats stats) {
+        this.userId = userId;
+        this.username = username;
+        this.token = token;
+        this.stats = stats;
+    }
+
+    CompletableFuture<WebSocket> connect(HttpClient client, URI node) {
+        URI uri = URI.create(node + "?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8));
+        long start = System.nanoTime();
+        return client.newWebSocketBuilder().buildAsync(uri, this).whenComplete((ws, error) -> {
+            if (error != null) {
+                stats.connectFailures.increment();
+                return;
+            }
+            stats.connectLatency.recordValue((System.nanoTime() - start) / 1000);
+            webSocket = ws;
+            sendChain = CompletableFuture.completedFuture(ws);
+            stats.connected.incrementAndGet();
+        });
+    }
+
+    boolean isConnected() {
+        return webSocket != null && !webSocket.isOutputClosed();
+    }
+
+    void send(VirtualUser receiver, String padding) {
+        if (!isConnected()) {
+            return;
+        }
+        if (queuedSends.incrementAndGet() > MAX_QUEUED_SENDS) {
+            queuedSends.decrementAndGet();
+            stats.dropped.increment();
+            return;
+        }
+        Instant now = Instant.now();
+        long micros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1000;
+        String frame = "{\"content\":\"lt|" + micros + "|" + padding + "\""
+                + ",\"senderId\":\"" + userId + "\""
+                + ",\"senderName\":\"" + username + "\""
+                + ",\"targetUserId\":\"" + receiver.userId + "\""
+                + ",\"timestamp\":\"" + now + "\""
+                + ",\"type\":\"text\"}";
+        synchronized (this) {
+            sendChain = sendChain.thenCompose(ws -> ws.sendText(frame, true)).whenComplete((ws, error) -> {
+                queuedSends.decrementAndGet();
+                if (error != null) {
+                    stats.sendFailures.increment();
+                } else {
+                    stats.sent.increment();
+                }
+            });
+            // keep the chain usable after a failed send
+            sendChain = sendChain.exceptionally(error -> webSocket);
+        }
+    }
+
+    void close() {
+        WebSocket ws = webSocket;
+        if (ws != null) {
+            ws.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+        }
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket ws, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            record(partial);
+            partial.setLength(0);
+        }
+        ws.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket ws, int statusCode, String reason) {
+        stats.connected.decrementAndGet();
+        stats.closedByServer.increment();
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket ws, Throwable error) {
+        stats.connected.decrementAndGet();
+        stats.errors.increment();
+    }
+
+    private void record(CharSequence frame) {
+        String text = frame.toString();
+        int start = text.indexOf(MARKER);
+        if (start < 0) {
+            return;
+        }
+        start += MARKER.length();
+        int end = text.indexOf('|', start);
+        if (end < 0) {
+            return;
+        }
+        Instant now = Instant.now();
+        long nowMicros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1000;
+        long latency = nowMicros - Long.parseLong(text, start, end, 10);
+        stats.received.increment();
+        if (stats.recording) {
+            stats.latency.recordValue(Math.max(0, latency));
+        }
+    }
+
+    // Shared counters; histograms are in microseconds
+    static final class Stats {
+        final Recorder latency = new Recorder(3);
+        final Recorder connectLatency = new Recorder(3);
+        final AtomicInteger connected = new AtomicInteger();
+        final LongAdder connectFailures = new LongAdder();
+        final LongAdder sent = new LongAdder();
+        final LongAdder received = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder sendFailures = new LongAdder();
+        final LongAdder closedByServer = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        // false during warmup
+        volatile boolean recording;
+    }
+}
@@ -0,0 +1,8 @@
+-- Trigram indexes so the user directory search (substring match on
+-- username, email, first and last name) can use an index instead of a seq scan
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_users_username_trgm ON users USING GIN (lower(username) gin_trgm_ops);
+CREATE INDEX idx_users_email_trgm ON users USING GIN (lower(email) gin_trgm_ops);
+CREATE INDEX idx_users_first_name_trgm ON users USING GIN (lower(first_name) gin_trgm_ops);
+CREATE INDEX idx_users_last_name_trgm ON users USING GIN (lower(last_name) gin_trgm_ops);
@@ -0,0 +1,32 @@
+-- Outbox of Keycloak side effects (group, user, group membership, verify email)
+-- written in the same transaction as the local user row and drained by ProvisioningWorker
+CREATE TABLE provisioning_outbox (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    idempotency_key VARCHAR(255) NOT NULL UNIQUE,
+    type VARCHAR(50) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    locked_until TIMESTAMP,
+    last_error TEXT,
+    user_id UUID NOT NULL,
+    tenant_id UUID NOT NULL,
+    username VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    first_name VARCHAR(100),
+    last_name VARCHAR(100),
+    password VARCHAR(255),
+    role VARCHAR(50) NOT NULL,
+    organization VARCHAR(255),
+    invited_by VARCHAR(255),
+    keycloak_group_id VARCHAR(64),
+    keycloak_user_id VARCHAR(64),
+    email_sent BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted_at TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    FOREIGN KEY (tenant_id) REFERENCES tenants(id)
+);
+
+CREATE INDEX idx_provisioning_outbox_due ON provisioning_outbox(status, next_attempt_at);
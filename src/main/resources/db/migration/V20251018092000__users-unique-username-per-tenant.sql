@@ -0,0 +1,3 @@
+-- Usernames are unique per tenant. The Bloom filter in front of user creation only
+-- short-circuits the lookup; this constraint (with users.email UNIQUE) stays authoritative.
+CREATE UNIQUE INDEX uq_users_tenant_username ON users(tenant_id, username);
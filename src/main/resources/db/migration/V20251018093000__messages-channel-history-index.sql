@@ -0,0 +1,2 @@
+-- Serves ChatReadRepository.getChannelMessages: newest-first history per channel
+CREATE INDEX idx_messages_channel_created ON messages(channel_id, created_at DESC, id DESC);
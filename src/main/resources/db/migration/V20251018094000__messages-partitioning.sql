@@ -0,0 +1,136 @@
+-- Range-partition MESSAGES by created_at (one partition per month, optionally hash
+-- sub-partitioned by tenant_id) so retention can drop whole partitions and history
+-- queries bounded by created_at only touch the months they need.
+
+-- A partitioned table's unique keys must contain the partition key, so messages(id)
+-- can no longer be the target of a foreign key. Integrity of these references is kept
+-- by the application.
+ALTER TABLE messages DROP CONSTRAINT IF EXISTS messages_parent_id_fkey;
+ALTER TABLE threads DROP CONSTRAINT IF EXISTS threads_root_message_id_fkey;
+ALTER TABLE reactions DROP CONSTRAINT IF EXISTS reactions_message_id_fkey;
+ALTER TABLE notifications DROP CONSTRAINT IF EXISTS notifications_message_id_fkey;
+ALTER TABLE attachments DROP CONSTRAINT IF EXISTS attachments_message_id_fkey;
+
+ALTER TABLE messages RENAME TO messages_legacy;
+ALTER TABLE messages_legacy RENAME CONSTRAINT messages_pkey TO messages_legacy_pkey;
+
+CREATE TABLE messages (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    channel_id UUID NOT NULL,
+    thread_id UUID,
+    user_id UUID NOT NULL,
+    tenant_id UUID NOT NULL,
+    parent_id UUID,
+    content TEXT,
+    type VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    edited_at TIMESTAMP,
+    deleted_at TIMESTAMP,
+    -- every partitioning column (created_at, and tenant_id for hash sub-partitions) must be in the key
+    PRIMARY KEY (id, created_at, tenant_id),
+    FOREIGN KEY (channel_id) REFERENCES channels(id),
+    FOREIGN KEY (thread_id) REFERENCES threads(id),
+    FOREIGN KEY (user_id) REFERENCES users(id),
+    FOREIGN KEY (tenant_id) REFERENCES tenants(id)
+) PARTITION BY RANGE (created_at);
+
+-- Creates the monthly partition holding p_month (no-op if it exists).
+-- With p_tenant_buckets > 0 the month is further split into that many tenant_id hash partitions.
+CREATE OR REPLACE FUNCTION zylo_create_message_partition(p_month DATE, p_tenant_buckets INT DEFAULT 0)
+RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::date;
+    v_name TEXT := format('messages_y%sm%s', to_char(v_start, 'YYYY'), to_char(v_start, 'MM'));
+BEGIN
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+    IF p_tenant_buckets > 0 THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L) PARTITION BY HASH (tenant_id)',
+                       v_name, v_start, v_end);
+        FOR i IN 0..p_tenant_buckets - 1 LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                           v_name || '_h' || i, v_name, p_tenant_buckets, i);
+        END LOOP;
+    ELSE
+        EXECUTE format('CREATE TABLE %I PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_start, v_end);
+    END IF;
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Makes sure the current month and the next p_months_ahead months have partitions
+CREATE OR REPLACE FUNCTION zylo_ensure_message_partitions(p_months_ahead INT, p_tenant_buckets INT DEFAULT 0)
+RETURNS VOID AS $$
+BEGIN
+    FOR i IN 0..p_months_ahead LOOP
+        PERFORM zylo_create_message_partition((date_trunc('month', now()) + make_interval(months => i))::date, p_tenant_buckets);
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaches (and unless p_detach_only, drops) every monthly partition that ends on or before p_cutoff.
+-- Returns the names of the partitions it removed.
+CREATE OR REPLACE FUNCTION zylo_drop_message_partitions_before(p_cutoff TIMESTAMP, p_detach_only BOOLEAN DEFAULT FALSE)
+RETURNS SETOF TEXT AS $$
+DECLARE
+    r RECORD;
+    v_parts TEXT[];
+    v_end DATE;
+BEGIN
+    FOR r IN
+        SELECT c.relname
+          FROM pg_inherits i
+          JOIN pg_class c ON c.oid = i.inhrelid
+         WHERE i.inhparent = 'messages'::regclass
+    LOOP
+        v_parts := regexp_match(r.relname, '^messages_y(\d{4})m(\d{2})$');
+        CONTINUE WHEN v_parts IS NULL;
+        v_end := (make_date(v_parts[1]::int, v_parts[2]::int, 1) + INTERVAL '1 month')::date;
+        IF v_end <= p_cutoff THEN
+            EXECUTE format('ALTER TABLE messages DETACH PARTITION %I', r.relname);
+            IF NOT p_detach_only THEN
+                EXECUTE format('DROP TABLE %I', r.relname);
+            END IF;
+            RETURN NEXT r.relname;
+        END IF;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for every month that already has rows, plus the next three
+DO $$
+DECLARE
+    v_month DATE := date_trunc('month', COALESCE((SELECT min(created_at) FROM messages_legacy), now()))::date;
+BEGIN
+    WHILE v_month <= (date_trunc('month', now()) + INTERVAL '3 months')::date LOOP
+        PERFORM zylo_create_message_partition(v_month);
+        v_month := (v_month + INTERVAL '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+INSERT INTO messages (id, channel_id, thread_id, user_id, tenant_id, parent_id, content, type,
+                      created_at, updated_at, edited_at, deleted_at)
+SELECT id, channel_id, thread_id, user_id, tenant_id, parent_id, content, type,
+       COALESCE(created_at, CURRENT_TIMESTAMP), updated_at, edited_at, deleted_at
+  FROM messages_legacy;
+
+DROP TABLE messages_legacy;
+
+CREATE INDEX idx_messages_channel_id ON messages(channel_id);
+CREATE INDEX idx_messages_thread_id ON messages(thread_id);
+CREATE INDEX idx_messages_channel_created ON messages(channel_id, created_at DESC, id DESC);
+CREATE INDEX idx_messages_tenant_created ON messages(tenant_id, created_at);
+
+-- Per-tenant override of the default message retention (zylo.messages.retention-days)
+CREATE TABLE message_retention_policies (
+    tenant_id UUID PRIMARY KEY,
+    retention_days INT NOT NULL CHECK (retention_days > 0),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    FOREIGN KEY (tenant_id) REFERENCES tenants(id)
+);
@@ -0,0 +1,19 @@
+-- Cold tier: immutable compressed segment files holding a channel's archived messages.
+-- Rows in messages are only deleted in the same transaction that records the segment,
+-- and last_created_at doubles as the channel's archive watermark.
+CREATE TABLE message_archive_segments (
+    id UUID PRIMARY KEY,
+    tenant_id UUID NOT NULL,
+    channel_id UUID NOT NULL,
+    path VARCHAR(512) NOT NULL,
+    first_created_at TIMESTAMP NOT NULL,
+    last_created_at TIMESTAMP NOT NULL,
+    message_count INT NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (tenant_id) REFERENCES tenants(id),
+    FOREIGN KEY (channel_id) REFERENCES channels(id),
+    UNIQUE (path)
+);
+
+CREATE INDEX idx_message_archive_segments_channel ON message_archive_segments(tenant_id, channel_id, last_created_at DESC);
@@ -0,0 +1,34 @@
+-- Content-addressed attachment storage. A blob is stored once per tenant and content hash;
+-- attachments reference it instead of carrying their own copy.
+CREATE TABLE attachment_blobs (
+    id UUID PRIMARY KEY,
+    tenant_id UUID NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    content_type VARCHAR(255),
+    storage_key VARCHAR(512) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted_at TIMESTAMP,
+    FOREIGN KEY (tenant_id) REFERENCES tenants(id),
+    UNIQUE (tenant_id, sha256)
+);
+
+-- Resumable upload sessions; the staged bytes live in the blob store until completion
+CREATE TABLE attachment_uploads (
+    id UUID PRIMARY KEY,
+    tenant_id UUID NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255),
+    total_size BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    blob_id UUID,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    deleted_at TIMESTAMP,
+    FOREIGN KEY (tenant_id) REFERENCES tenants(id),
+    FOREIGN KEY (blob_id) REFERENCES attachment_blobs(id)
+);
+
+ALTER TABLE attachments ADD COLUMN blob_id UUID REFERENCES attachment_blobs(id);
+CREATE INDEX idx_attachments_blob_id ON attachments(blob_id);
@@ -0,0 +1,2 @@
+-- Passwords are no longer queued for the worker: new users set theirs from the account setup email
+ALTER TABLE provisioning_outbox DROP COLUMN password;
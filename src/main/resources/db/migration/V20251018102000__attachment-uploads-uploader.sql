@@ -0,0 +1,4 @@
+-- Upload sessions belong to the user who started them; the uploader may also read the
+-- resulting blob before it is attached to any message.
+ALTER TABLE attachment_uploads ADD COLUMN uploaded_by UUID;
+CREATE INDEX idx_attachment_uploads_blob_id ON attachment_uploads(blob_id, uploaded_by);
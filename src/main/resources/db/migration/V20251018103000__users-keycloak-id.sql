@@ -0,0 +1,6 @@
+-- Keycloak user id (the JWT sub) of each local user. Tokens only carry the sub, while
+-- channel_members, messages and attachment_uploads reference users.id.
+-- Rows created before this column existed are linked on first login by verified email.
+ALTER TABLE users ADD COLUMN keycloak_id VARCHAR(64);
+
+CREATE UNIQUE INDEX idx_users_keycloak_id ON users(keycloak_id);
@@ -0,0 +1,7 @@
+-- uploaded_by was briefly filled with the Keycloak sub instead of users.id. Those sessions can no
+-- longer be matched to their owner, so they are orphaned and left for the stale upload cleanup.
+UPDATE attachment_uploads SET uploaded_by = NULL
+ WHERE uploaded_by IS NOT NULL AND uploaded_by NOT IN (SELECT id FROM users);
+
+ALTER TABLE attachment_uploads
+    ADD CONSTRAINT fk_attachment_uploads_uploaded_by FOREIGN KEY (uploaded_by) REFERENCES users(id);
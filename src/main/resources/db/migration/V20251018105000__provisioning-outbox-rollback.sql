@@ -0,0 +1,13 @@
+-- A task that fails for good deletes the local user it was provisioning (and, for a registration,
+-- the new tenant) so the same email and organization can sign up again. The task row stays behind
+-- as the record of the failure, so its references are cleared instead of blocking the delete.
+ALTER TABLE provisioning_outbox ALTER COLUMN user_id DROP NOT NULL;
+ALTER TABLE provisioning_outbox ALTER COLUMN tenant_id DROP NOT NULL;
+
+ALTER TABLE provisioning_outbox DROP CONSTRAINT provisioning_outbox_user_id_fkey;
+ALTER TABLE provisioning_outbox DROP CONSTRAINT provisioning_outbox_tenant_id_fkey;
+
+ALTER TABLE provisioning_outbox
+    ADD CONSTRAINT provisioning_outbox_user_id_fkey FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL;
+ALTER TABLE provisioning_outbox
+    ADD CONSTRAINT provisioning_outbox_tenant_id_fkey FOREIGN KEY (tenant_id) REFERENCES tenants(id) ON DELETE SET NULL;
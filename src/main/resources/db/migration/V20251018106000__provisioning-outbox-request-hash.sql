@@ -0,0 +1,2 @@
+-- SHA-256 of the request a task was created from; a replayed idempotency key with a different body is a conflict
+ALTER TABLE provisioning_outbox ADD COLUMN request_hash VARCHAR(64);
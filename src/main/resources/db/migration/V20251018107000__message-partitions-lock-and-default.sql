@@ -0,0 +1,37 @@
+-- Partition creation runs on every chat node at startup and on a schedule. The to_regclass check
+-- and the CREATE TABLE were two steps, so two nodes could both see the month missing and one of
+-- them failed. Creation is now serialized by a transaction-scoped advisory lock.
+--
+-- A DEFAULT partition catches rows whose month has no partition yet (clock skew, a node that
+-- was down past the months-ahead window), which used to fail the insert. Postgres refuses to
+-- create a month's partition while DEFAULT holds rows for it, so such rows are moved into the
+-- new partition before it is attached.
+CREATE TABLE IF NOT EXISTS messages_default PARTITION OF messages DEFAULT;
+
+CREATE OR REPLACE FUNCTION zylo_create_message_partition(p_month DATE, p_tenant_buckets INT DEFAULT 0)
+RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::date;
+    v_name TEXT := format('messages_y%sm%s', to_char(v_start, 'YYYY'), to_char(v_start, 'MM'));
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('zylo_message_partitions'));
+    IF to_regclass(v_name) IS NOT NULL THEN
+        RETURN v_name;
+    END IF;
+    IF p_tenant_buckets > 0 THEN
+        EXECUTE format('CREATE TABLE %I (LIKE messages INCLUDING DEFAULTS) PARTITION BY HASH (tenant_id)', v_name);
+        FOR i IN 0..p_tenant_buckets - 1 LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                           v_name || '_h' || i, v_name, p_tenant_buckets, i);
+        END LOOP;
+    ELSE
+        EXECUTE format('CREATE TABLE %I (LIKE messages INCLUDING DEFAULTS)', v_name);
+    END IF;
+    EXECUTE format('WITH moved AS (DELETE FROM messages_default WHERE created_at >= %L AND created_at < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', v_start, v_end, v_name);
+    -- Attaching creates the partition's copies of the parent's indexes and primary key
+    EXECUTE format('ALTER TABLE messages ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', v_name, v_start, v_end);
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
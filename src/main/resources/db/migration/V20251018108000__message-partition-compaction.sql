@@ -0,0 +1,59 @@
+-- Retention for default-policy tenants without mass DELETEs. While a tenant override longer than
+-- the default holds a month back from being dropped, each leaf partition of that month (the month
+-- itself, or its tenant hash partitions) is rebuilt with only the rows of p_keep, the tenants whose
+-- own retention is longer than the default, and swapped in. The copy is the few long-retention
+-- tenants' rows rather than a delete of everybody else's. A rebuilt leaf is marked; later runs only
+-- remove rows of tenants that have since left p_keep. Returns the leaves it rebuilt.
+CREATE OR REPLACE FUNCTION zylo_compact_message_partitions_before(p_cutoff TIMESTAMP, p_keep UUID[],
+                                                                  p_detach_only BOOLEAN DEFAULT FALSE)
+RETURNS SETOF TEXT AS $$
+DECLARE
+    r RECORD;
+    l RECORD;
+    v_parts TEXT[];
+    v_end DATE;
+    v_tmp TEXT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('zylo_message_partitions'));
+    FOR r IN
+        SELECT c.relname
+          FROM pg_inherits i
+          JOIN pg_class c ON c.oid = i.inhrelid
+         WHERE i.inhparent = 'messages'::regclass
+    LOOP
+        v_parts := regexp_match(r.relname, '^messages_y(\d{4})m(\d{2})$');
+        CONTINUE WHEN v_parts IS NULL;
+        v_end := (make_date(v_parts[1]::int, v_parts[2]::int, 1) + INTERVAL '1 month')::date;
+        CONTINUE WHEN v_end > p_cutoff;
+        FOR l IN
+            SELECT c.relname AS leaf, p.relname AS parent, pg_get_expr(c.relpartbound, c.oid) AS bound,
+                   obj_description(c.oid, 'pg_class') AS note
+              FROM pg_class c
+              JOIN pg_inherits i ON i.inhrelid = c.oid
+              JOIN pg_class p ON p.oid = i.inhparent
+             WHERE c.relkind = 'r'
+               AND (c.relname = r.relname OR p.relname = r.relname)
+        LOOP
+            IF l.note = 'zylo:compacted' THEN
+                EXECUTE format('DELETE FROM %I WHERE tenant_id <> ALL (%L::uuid[])', l.leaf, p_keep);
+                CONTINUE;
+            END IF;
+            v_tmp := l.leaf || '_keep';
+            -- Readers carry on; edits to kept rows wait until the swap commits instead of being lost
+            EXECUTE format('LOCK TABLE %I IN EXCLUSIVE MODE', l.leaf);
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS)', v_tmp, l.leaf);
+            EXECUTE format('INSERT INTO %I SELECT * FROM %I WHERE tenant_id = ANY (%L::uuid[])', v_tmp, l.leaf, p_keep);
+            EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', l.parent, l.leaf);
+            IF p_detach_only THEN
+                EXECUTE format('ALTER TABLE %I RENAME TO %I', l.leaf, l.leaf || '_expired');
+            ELSE
+                EXECUTE format('DROP TABLE %I', l.leaf);
+            END IF;
+            EXECUTE format('ALTER TABLE %I RENAME TO %I', v_tmp, l.leaf);
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I %s', l.parent, l.leaf, l.bound);
+            EXECUTE format('COMMENT ON TABLE %I IS %L', l.leaf, 'zylo:compacted');
+            RETURN NEXT l.leaf;
+        END LOOP;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,2 @@
+-- Unfinished uploads by age, for the abandoned-upload cleanup
+CREATE INDEX idx_attachment_uploads_stale ON attachment_uploads(created_at) WHERE status = 'UPLOADING';
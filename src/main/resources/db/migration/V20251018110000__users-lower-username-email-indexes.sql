@@ -0,0 +1,3 @@
+-- Existing-user checks compare lower(username) per tenant and lower(email) across tenants
+CREATE INDEX idx_users_tenant_lower_username ON users(tenant_id, lower(username));
+CREATE INDEX idx_users_lower_email ON users(lower(email));